@@ -23,107 +23,449 @@
 package com.snc.secres.tool.passive;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import com.snc.secres.tool.common.io.FileHelpers;
-import com.snc.secres.tool.common.io.PrintStreamUnixEOL;
 import com.snc.secres.tool.dynamic.Tools;
+import com.snc.secres.tool.passive.graph.CallPathIndex;
+import com.snc.secres.tool.passive.graph.PathQuery;
+import com.snc.secres.tool.passive.graph.ReachabilityIndex;
+import com.snc.secres.tool.passive.index.CallSiteScan;
+import com.snc.secres.tool.passive.index.CallSiteScan.CallSite;
+import com.snc.secres.tool.passive.index.ClassPathScan;
+import com.snc.secres.tool.passive.index.ClassPathSlice;
 
+import sootup.callgraph.BudgetedClassHierarchyAnalysisAlgorithm;
+import sootup.callgraph.BudgetedPointsToAnalysisAlgorithm;
+import sootup.callgraph.BudgetedRapidTypeAnalysisAlgorithm;
+import sootup.callgraph.CallGraph;
 import sootup.callgraph.CallGraphWrapper;
 import sootup.callgraph.CallGraphAlgorithm;
-import sootup.callgraph.ClassHierarchyAnalysisAlgorithm;
+import sootup.callgraph.CallGraphBudget;
+import sootup.callgraph.CallGraphCheckpoint;
+import sootup.callgraph.CallGraphExporter;
+import sootup.callgraph.CallGraphOverlay;
+import sootup.callgraph.ExtensibleCallGraphAlgorithm;
 import sootup.callgraph.GraphBasedCallGraph;
-import sootup.callgraph.RapidTypeAnalysisAlgorithm;
+import sootup.callgraph.ParallelClassHierarchyAnalysisAlgorithm;
+import sootup.callgraph.ParallelRapidTypeAnalysisAlgorithm;
 import sootup.callgraph.filter.CallGraphFilter;
+import sootup.core.IdentifierFactory;
 import sootup.core.signatures.MethodSignature;
+import sootup.core.transform.TimedBodyInterceptor;
+import sootup.core.typehierarchy.AuxViewTypeHierarchy;
+import sootup.core.types.ClassType;
+import sootup.java.core.JavaIdentifierFactory;
 import sootup.java.core.JavaSootClass;
-import sootup.java.core.JavaSootMethod;
+import sootup.java.core.views.AuxMutableJavaView;
 import sootup.java.core.views.MutableJavaView;
 
 public class Analysis {
 
+    public static final String FULL_OUTPUT_SCOPE = "full";
+    public static final String CHOP_OUTPUT_SCOPE = "chop";
+    public static final String PARTIAL_FILE_EXT = ".partial";
+    public static final String CHECKPOINT_FILE_NAME = "call_graph.checkpoint";
+    public static final String ENTRY_SLICES_DIR_EXT = ".entries";
+    public static final String ENTRY_SLICES_INDEX_FILE_NAME = "entries.txt";
+    public static final String SINK_CALL_SITES_FILE_NAME = "sink_call_sites.txt";
+
     private static final String CN = Analysis.class.getSimpleName();
 
     private final MutableJavaView view;
-    private final String jsFullClassName;
-    private final Set<MethodSignature> runtimeTraceMethodSigs;
-    private final MethodSignature sinkMethodSignature;
+    private final List<Trace> traces;
+    private final MethodSignature defaultSinkMethodSignature;
     @SuppressWarnings("unused")
     private final MethodSignature mainMethodSignature;
     private final MethodSignature entryMethodSignature;
+    private final List<MethodSignature> entryMethodSignatures;
+    private final boolean sliceEntries;
     private final CallGraphWrapper callGraph;
+    private final ExtensibleCallGraphAlgorithm extension;
+    private final CallGraphFilter cgFilter;
+    private final List<TimedBodyInterceptor> bodyInterceptors;
+    private final List<PathQuery> pathQueries;
     private final Config config;
+    private final PhaseProfiler profiler;
+    private final RuntimeTraceReader traceReader;
+    private final String partialReason;
+    private final Map<MethodSignature,Set<MethodSignature>> sinkContMethods;
+    private CallPathIndex pathIndex;
+    private ReachabilityIndex reachabilityIndex;
 
-    private Analysis(MutableJavaView view, String jsFullClassName, Set<MethodSignature> runtimeTraceMethodSigs, MethodSignature sinkMethodSignature, MethodSignature mainMethodSignature,
-            MethodSignature entryMethodSignature, CallGraphWrapper callGraph, Config config) {
+    private Analysis(MutableJavaView view, List<Trace> traces, MethodSignature defaultSinkMethodSignature, MethodSignature mainMethodSignature,
+            MethodSignature entryMethodSignature, List<MethodSignature> entryMethodSignatures, boolean sliceEntries, CallGraphWrapper callGraph, 
+            ExtensibleCallGraphAlgorithm extension, CallGraphFilter cgFilter, List<TimedBodyInterceptor> bodyInterceptors, List<PathQuery> pathQueries, Config config, PhaseProfiler profiler, 
+            RuntimeTraceReader traceReader, String partialReason) {
         this.view = view;
-        this.jsFullClassName =  jsFullClassName;
-        this.runtimeTraceMethodSigs = runtimeTraceMethodSigs;
-        this.sinkMethodSignature = sinkMethodSignature;
+        this.traces = traces;
+        this.defaultSinkMethodSignature = defaultSinkMethodSignature;
         this.mainMethodSignature = mainMethodSignature;
         this.entryMethodSignature = entryMethodSignature;
+        this.entryMethodSignatures = entryMethodSignatures;
+        this.sliceEntries = sliceEntries;
         this.callGraph = callGraph;
+        this.extension = extension;
+        this.cgFilter = cgFilter;
+        this.bodyInterceptors = bodyInterceptors;
+        this.pathQueries = pathQueries;
         this.config = config;
+        this.profiler = profiler;
+        this.traceReader = traceReader;
+        this.partialReason = partialReason;
+        this.sinkContMethods = new HashMap<>();
+        this.pathIndex = null;
+        this.reachabilityIndex = null;
     }
 
     public void run() throws IOException {
+        long start = System.nanoTime();
+        int failed = runTraces(traces, Collections.singletonList(profiler));
+        if(traces.size() > 1) {
+            System.out.println(CN + ": Processed " + (traces.size() - failed) + " of " + traces.size() + " runtime traces in " 
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+        }
+
+        System.out.println(CN + ": Body interceptor timings for the '" + config.getBodyInterceptorProfile() + "' profile:");
+        for(TimedBodyInterceptor bodyInterceptor : bodyInterceptors) {
+            System.out.println("  " + bodyInterceptor);
+        }
+
+        if(failed > 0)
+            throw new IOException("Failed to process " + failed + " of " + traces.size() + " runtime traces.");
+    }
+
+    /*
+     * Splices the runtime traces in the given files and directories into the call graph held in memory 
+     * just as run does for the runtime traces of the config, replacing the sink_method_sig of the config. 
+     * Returns the files written for the traces.
+     */
+    public synchronized List<Path> splice(List<Path> paths) throws IOException {
+        if(defaultSinkMethodSignature == null)
+            throw new IllegalArgumentException("A 'sink' method signature must be supplied to splice runtime traces.");
+        PhaseProfiler spliceProfiler = new PhaseProfiler("splice", true);
+        spliceProfiler.begin("trace_parse");
+        List<Path> runtimeTraceFiles = listRuntimeTraceFiles(paths);
+        List<String> jsFullClassNames = runtimeTraceFiles == null ? null : getJsFullClassNames(runtimeTraceFiles);
+        List<Trace> newTraces = jsFullClassNames == null ? null : readRuntimeTraces(traceReader, runtimeTraceFiles, jsFullClassNames, 
+                Collections.nCopies(runtimeTraceFiles.size(), defaultSinkMethodSignature));
+        spliceProfiler.end();
+        if(newTraces == null)
+            throw new IllegalArgumentException("Failed to read the runtime traces " + paths + ".");
 
-        Deque<MethodSignature> toVisit = new ArrayDeque<>();
-        Set<MethodSignature> visited = new HashSet<>();
-        toVisit.add(entryMethodSignature);
-        Set<MethodSignature> sinkContMethods = new HashSet<>();
-        while(!toVisit.isEmpty()) {
-            MethodSignature cur = toVisit.poll();
-            if(visited.add(cur)) {
-                for(MethodSignature dest : callGraph.callsFrom(cur)) {
-                    if(dest.equals(sinkMethodSignature)) {
-                        sinkContMethods.add(cur);
+        long start = System.nanoTime();
+        int failed;
+        try {
+            failed = runTraces(newTraces, Arrays.asList(profiler, spliceProfiler));
+        } finally {
+            // The simulator classes are only needed while splicing so do not let them pile up in the view
+            for(Trace trace : newTraces) {
+                view.removeClass(view.getIdentifierFactory().getClassType(trace.jsFullClassName));
+            }
+        }
+        System.out.println(CN + ": Processed " + (newTraces.size() - failed) + " of " + newTraces.size() + " runtime traces in " 
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+        if(failed > 0)
+            throw new IOException("Failed to process " + failed + " of " + newTraces.size() + " runtime traces.");
+
+        List<Path> ret = new ArrayList<>();
+        String fileExt = CallGraphExporter.getFileExtension(config.getOutputFormat(), config.getOutputCompression());
+        for(Trace trace : newTraces) {
+            ret.add(FileHelpers.getPath(config.getOutputDirPath(), trace.jsFullClassName + fileExt));
+            if(!pathQueries.isEmpty())
+                ret.add(FileHelpers.getPath(config.getOutputDirPath(), trace.jsFullClassName + ".paths.txt"));
+            if(config.getReachabilityIndex())
+                ret.add(FileHelpers.getPath(config.getOutputDirPath(), trace.jsFullClassName + ReachabilityIndex.FILE_EXT));
+            if(config.getProfileReport())
+                ret.add(FileHelpers.getPath(config.getOutputDirPath(), trace.jsFullClassName + PhaseProfiler.FILE_EXT));
+            if(partialReason != null)
+                ret.add(FileHelpers.getPath(config.getOutputDirPath(), trace.jsFullClassName + PARTIAL_FILE_EXT));
+        }
+        return ret;
+    }
+
+    /*
+     * Answers path queries over the call graph held in memory. A query without a source starts at the 
+     * entry point method. The path index is built on the first query and kept for the following ones.
+     */
+    public synchronized void writePathQueries(Writer out, List<Map<String,String>> entries) throws IOException {
+        List<PathQuery> queries = PathQuery.makePathQueries(entries, entryMethodSignature, view.getIdentifierFactory());
+        if(pathIndex == null)
+            pathIndex = new CallPathIndex(callGraph);
+        for(PathQuery query : queries) {
+            query.writeResults(out, pathIndex);
+        }
+    }
+
+    /*
+     * Returns true if the from method can reach the to method in the call graph held in memory. The 
+     * reachability index is built on the first query and kept for the following ones.
+     */
+    public synchronized boolean reaches(String from, String to) {
+        if(reachabilityIndex == null)
+            reachabilityIndex = ReachabilityIndex.build(callGraph);
+        return reachabilityIndex.reaches(view.getIdentifierFactory().parseMethodSignature(from), 
+                view.getIdentifierFactory().parseMethodSignature(to));
+    }
+
+    public int getMethodCount() {
+        return callGraph.getMethodSignatures().size();
+    }
+
+    public int getCallCount() {
+        return callGraph.callCount();
+    }
+
+    private int runTraces(List<Trace> traces, List<PhaseProfiler> profilers) {
+        Map<MethodSignature,Set<MethodSignature>> newSinks = new HashMap<>();
+        for(Trace trace : traces) {
+            if(!sinkContMethods.containsKey(trace.sinkMethodSignature))
+                newSinks.put(trace.sinkMethodSignature, new HashSet<>());
+        }
+        if(!newSinks.isEmpty()) {
+            profiler.begin("sink_search");
+            // Get all methods that call each sink method in one pass over the call graph
+            Deque<MethodSignature> toVisit = new ArrayDeque<>();
+            Set<MethodSignature> visited = new HashSet<>();
+            // A partial call graph may not have reached every entry point
+            for(MethodSignature entry : entryMethodSignatures) {
+                if(callGraph.containsMethod(entry))
+                    toVisit.add(entry);
+            }
+            while(!toVisit.isEmpty()) {
+                MethodSignature cur = toVisit.poll();
+                if(visited.add(cur)) {
+                    for(MethodSignature dest : callGraph.callsFrom(cur)) {
+                        Set<MethodSignature> sinkCont = newSinks.get(dest);
+                        if(sinkCont != null) {
+                            sinkCont.add(cur);
+                        }
+                        toVisit.push(dest);
                     }
-                    toVisit.push(dest);
                 }
             }
+            sinkContMethods.putAll(newSinks);
+            profiler.end();
+            profiler.addStat("sink_methods", sinkContMethods.size());
+            profiler.addStat("sink_container_methods", sinkContMethods.values().stream().mapToLong(Set::size).sum());
         }
 
-        // Add in our blank class and method to house the runtime simulation
-        JavaSootClass runtimeSimClass = SootTools.makeClassWithEmptyMethod(view, jsFullClassName, "runtimeSimulator");
-        JavaSootMethod runtimeSimMethod = runtimeSimClass.getMethodsByName("runtimeSimulator").iterator().next();
+        // Add in our blank classes and methods to house the runtime simulations up front since the view is not thread safe
+        List<MethodSignature> runtimeSimMethodSigs = new ArrayList<>();
+        for(Trace trace : traces) {
+            JavaSootClass runtimeSimClass = SootTools.makeClassWithEmptyMethod(view, trace.jsFullClassName, "runtimeSimulator");
+            runtimeSimMethodSigs.add(runtimeSimClass.getMethodsByName("runtimeSimulator").iterator().next().getSignature());
+        }
+
+        // Each trace is spliced into its own overlay of the shared call graph so the traces can be processed in parallel
+        IntStream indexes = IntStream.range(0, traces.size());
+        int failed = (traces.size() > 1 ? indexes.parallel() : indexes)
+            .map(i -> runTrace(traces.get(i), runtimeSimMethodSigs.get(i), sinkContMethods.get(traces.get(i).sinkMethodSignature), profilers) ? 0 : 1).sum();
+
+        // Drop the classes the extensions resolved again just like after the call graph was built
+        if(extension != null && view instanceof AuxMutableJavaView)
+            ((AuxMutableJavaView)view).releaseBodies();
+        return failed;
+    }
 
-        // Add the runtime simulation method to the call graph
-        callGraph.addMethod(runtimeSimMethod.getSignature());
+    private boolean runTrace(Trace trace, MethodSignature runtimeSimMethodSig, Set<MethodSignature> sinkContMethods, 
+            List<PhaseProfiler> profilers) {
+        try {
+            // Traces may run in parallel so only count what this thread allocates
+            PhaseProfiler traceProfiler = new PhaseProfiler("trace", false);
+            traceProfiler.addStat("trace_methods", trace.methodSigs.size());
+            CallGraphOverlay splicedCallGraph = new CallGraphOverlay(callGraph);
+
+            if(extension != null) {
+                // Add what the methods the script calls call in turn before the runtime simulation is spliced in
+                traceProfiler.begin("trace_extension");
+                int removedCalls = extendCallGraph(splicedCallGraph, trace.methodSigs);
+                traceProfiler.end();
+                traceProfiler.addStat("extended_methods", splicedCallGraph.getMethodSignatures().size() - callGraph.getMethodSignatures().size());
+                traceProfiler.addStat("extended_calls", splicedCallGraph.callCount() - callGraph.callCount());
+                traceProfiler.addStat("extension_filter_removed_calls", removedCalls);
+            }
+
+            traceProfiler.begin("splice");
+
+            // Add the runtime simulation method to the call graph
+            splicedCallGraph.addMethod(runtimeSimMethodSig);
+
+            // Add nodes and edges to the cg that go from our runtime simulator method to the methods the script calls
+            for(MethodSignature methodSig : trace.methodSigs) {
+                splicedCallGraph.addMethod(methodSig);
+                splicedCallGraph.addCall(runtimeSimMethodSig, methodSig);
+            }
+
+            for(MethodSignature sinkContMethodSignature : sinkContMethods) {
+                // Add the call to sink container to runtime sim method edge
+                splicedCallGraph.addCall(sinkContMethodSignature, runtimeSimMethodSig);
+                // Remove the call from sink container to sink edge from the call graph
+                splicedCallGraph.removeCall(sinkContMethodSignature, trace.sinkMethodSignature);
+            }
+            traceProfiler.end();
+            traceProfiler.addStat("spliced_methods", splicedCallGraph.getMethodSignatures().size());
+            traceProfiler.addStat("spliced_calls", splicedCallGraph.callCount());
 
-        // Add nodes and edges to the cg that go from our runtime simulator method to the methods the script calls
-        for(MethodSignature methodSig : runtimeTraceMethodSigs) {
-            callGraph.addMethod(methodSig);
-            callGraph.addCall(runtimeSimMethod.getSignature(), methodSig);
+            CallGraph outCallGraph = splicedCallGraph;
+            if(config.getOutputScope().equalsIgnoreCase(CHOP_OUTPUT_SCOPE)) {
+                // Only keep the methods on a path from the entry point to the methods called by the script
+                traceProfiler.begin("chop");
+                outCallGraph = CallGraphWrapper.chop(splicedCallGraph, entryMethodSignatures, trace.methodSigs, 
+                        config.getChopMaxDepth(), config.getChopMaxFanOut());
+                traceProfiler.end();
+                System.out.println(CN + ": Chopped the call graph of " + trace.jsFullClassName + " from " + splicedCallGraph.getMethodSignatures().size() 
+                        + " methods and " + splicedCallGraph.callCount() + " calls to " + outCallGraph.getMethodSignatures().size() + " methods and " 
+                        + outCallGraph.callCount() + " calls.");
+            }
+
+            traceProfiler.addStat("output_methods", outCallGraph.getMethodSignatures().size());
+            traceProfiler.addStat("output_calls", outCallGraph.callCount());
+
+            traceProfiler.begin("export");
+            String fileExt = CallGraphExporter.getFileExtension(config.getOutputFormat(), config.getOutputCompression());
+            new CallGraphExporter(outCallGraph).export(FileHelpers.getPath(config.getOutputDirPath(), trace.jsFullClassName + fileExt), 
+                    config.getOutputFormat(), config.getOutputCompression());
+            traceProfiler.end();
+
+            if(sliceEntries) {
+                traceProfiler.begin("entry_slices");
+                long start = System.nanoTime();
+                writeEntrySlices(trace, outCallGraph, fileExt);
+                traceProfiler.end();
+                traceProfiler.addStat("entry_slices", entryMethodSignatures.size());
+                System.out.println(CN + ": Wrote the slices of " + entryMethodSignatures.size() + " entry points for " + trace.jsFullClassName 
+                        + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+            }
+
+            // Mark outputs built from a partial call graph and remove any stale marker from an earlier run
+            Path partialFile = FileHelpers.getPath(config.getOutputDirPath(), trace.jsFullClassName + PARTIAL_FILE_EXT);
+            if(partialReason != null)
+                Files.write(partialFile, Collections.singletonList(partialReason));
+            else
+                Files.deleteIfExists(partialFile);
+
+            if(!pathQueries.isEmpty()) {
+                // Query the full call graph so paths are found even when only a chop is written
+                traceProfiler.begin("path_queries");
+                long start = System.nanoTime();
+                CallPathIndex pathIndex = new CallPathIndex(splicedCallGraph);
+                long indexed = System.nanoTime();
+                try(Writer out = Files.newBufferedWriter(FileHelpers.getPath(config.getOutputDirPath(), trace.jsFullClassName + ".paths.txt"))) {
+                    for(PathQuery pathQuery : pathQueries) {
+                        pathQuery.writeResults(out, pathIndex);
+                    }
+                }
+                traceProfiler.end();
+                System.out.println(CN + ": Answered " + pathQueries.size() + " path queries for " + trace.jsFullClassName + " in " 
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - indexed) + " ms using a path index built in " 
+                        + TimeUnit.NANOSECONDS.toMillis(indexed - start) + " ms.");
+            }
+
+            if(config.getReachabilityIndex()) {
+                traceProfiler.begin("reachability_index");
+                long start = System.nanoTime();
+                ReachabilityIndex reachabilityIndex = ReachabilityIndex.build(splicedCallGraph);
+                reachabilityIndex.write(FileHelpers.getPath(config.getOutputDirPath(), trace.jsFullClassName + ReachabilityIndex.FILE_EXT));
+                traceProfiler.end();
+                System.out.println(CN + ": Wrote a reachability index for " + trace.jsFullClassName + " of " + reachabilityIndex.getMethodCount() 
+                        + " methods in " + reachabilityIndex.getComponentCount() + " components in " 
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+            }
+
+            if(config.getProfileReport()) {
+                List<PhaseProfiler> reportProfilers = new ArrayList<>(profilers);
+                reportProfilers.add(traceProfiler);
+                PhaseProfiler.writeReport(FileHelpers.getPath(config.getOutputDirPath(), trace.jsFullClassName + PhaseProfiler.FILE_EXT), 
+                        trace.jsFullClassName, reportProfilers, bodyInterceptors);
+            }
+            return true;
+        } catch(Exception e) {
+            System.err.println(CN + ": Failed to process the runtime trace file '" + trace.file + "'.\n\n");
+            e.printStackTrace();
+            return false;
         }
+    }
 
-        for(MethodSignature sinkContMethodSignature : sinkContMethods) {
-            // Add the call to sink container to runtime sim method edge
-            callGraph.addCall(sinkContMethodSignature, runtimeSimMethod.getSignature());
-            // Remove the call from sink container to sink edge from the call graph
-            callGraph.removeCall(sinkContMethodSignature, sinkMethodSignature);
+    /*
+     * Extends the overlay with the methods reachable from the given methods and their calls. The calls of the 
+     * base call graph were filtered after it was built so only the calls the extension added are filtered here.
+     * Returns the number of calls the filter removed.
+     */
+    private int extendCallGraph(CallGraphOverlay overlay, Collection<MethodSignature> methodSigs) {
+        // The extension resolves classes through the view, which is not thread safe, so the traces take turns
+        synchronized(extension) {
+            extension.extend(overlay, methodSigs);
+            AuxViewTypeHierarchy typeHierarchy = view.getTypeHierarchy() instanceof AuxViewTypeHierarchy 
+                ? (AuxViewTypeHierarchy)view.getTypeHierarchy() : new AuxViewTypeHierarchy(view);
+            List<MethodSignature[]> deniedCalls = new ArrayList<>();
+            overlay.forEachAddedCall((source, dest) -> {
+                if(cgFilter.deniedEdge(source, dest, typeHierarchy))
+                    deniedCalls.add(new MethodSignature[] {source, dest});
+            });
+            for(MethodSignature[] call : deniedCalls)
+                overlay.removeCall(call[0], call[1]);
+            return deniedCalls.size();
         }
+    }
 
-        try(PrintStreamUnixEOL ps = new PrintStreamUnixEOL(Files.newOutputStream(FileHelpers.getPath(config.getOutputDirPath(), jsFullClassName + ".dot")))) {
-            ps.println(callGraph.exportAsDot());
+    /*
+     * Writes the methods reachable from each entry point in the output call graph, along with the calls between
+     * them, to a file of its own in a directory named after the trace. The slices are computed in parallel over 
+     * the shared call graph. An index of the entry point, method count, and call count of each file is written
+     * to the same directory and any slice left over from an earlier run is removed.
+     */
+    private void writeEntrySlices(Trace trace, CallGraph outCallGraph, String fileExt) throws IOException {
+        Path dir = FileHelpers.getPath(config.getOutputDirPath(), trace.jsFullClassName + ENTRY_SLICES_DIR_EXT);
+        Files.createDirectories(dir);
+        for(Path entry : FileHelpers.getDirectoryEntries(dir)) {
+            if(entry.getFileName().toString().startsWith("entry"))
+                Files.delete(entry);
         }
+        String[] lines = new String[entryMethodSignatures.size()];
+        try {
+            IntStream.range(0, entryMethodSignatures.size()).parallel().forEach(i -> {
+                MethodSignature entry = entryMethodSignatures.get(i);
+                CallGraphWrapper slice = CallGraphWrapper.slice(outCallGraph, entry);
+                String fileName = "entry" + i + fileExt;
+                try {
+                    new CallGraphExporter(slice).export(dir.resolve(fileName), config.getOutputFormat(), config.getOutputCompression());
+                } catch(IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                lines[i] = fileName + "\t" + entry + "\t" + slice.getMethodSignatures().size() + "\t" + slice.callCount();
+            });
+        } catch(UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.write(dir.resolve(ENTRY_SLICES_INDEX_FILE_NAME), Arrays.asList(lines));
     }
 
-    private static MethodSignature parseMethodSignature(MutableJavaView view, String sig, String name) {
+    private static MethodSignature parseMethodSignature(IdentifierFactory identifierFactory, String sig, String name) {
         if(sig.isEmpty()) {
             System.err.println(CN + ": A '" + name + "' method signature must be supplied.");
             return null;
         }
         try {
-            return view.getIdentifierFactory().parseMethodSignature(sig);
+            return identifierFactory.parseMethodSignature(sig);
         } catch(Exception e) {
             System.err.println(CN + ": SootUp failed to parse '" + name + "' method signature '" + sig + "'.\n\n");
             e.printStackTrace();
@@ -131,110 +473,554 @@ public class Analysis {
         }
     }
 
-    public static Analysis makeAnalysis(Config config) {
-        Path runtimeTraceFile = config.getRuntimeTraceFilePath();
-        if(!FileHelpers.checkRWFileExists(runtimeTraceFile)) {
-            System.err.println(CN + ": Failed to verify the existence of the runtime trace file '" + runtimeTraceFile + "'.");
+    /*
+     * Finds the methods on the class path that call the sinks of the config by scanning the class files 
+     * directly, which takes seconds compared to building the call graph. The calling methods are written 
+     * to the output directory, one line per sink and calling method along with the class declaring the 
+     * calling method. Returns null if the scan fails.
+     */
+    public static CallSiteScan prescanSinks(Config config) {
+        if(config.getClassPath().isEmpty()) {
+            System.err.println(CN + ": A non-empty class-path must be supplied.");
             return null;
         }
+        Set<String> sinkMethodSigs = new LinkedHashSet<>();
+        if(!config.getSinkMethodSig().isEmpty())
+            sinkMethodSigs.add(config.getSinkMethodSig());
+        for(Map<String,String> entry : config.getSinkEntries()) {
+            String sinkMethodSig = entry.get("sink_method_sig");
+            if(sinkMethodSig != null && !sinkMethodSig.isBlank())
+                sinkMethodSigs.add(sinkMethodSig);
+        }
+        if(sinkMethodSigs.isEmpty()) {
+            System.err.println(CN + ": A 'sink' method signature must be supplied.");
+            return null;
+        }
+        List<MethodSignature> sinkMethodSignatures = new ArrayList<>();
+        for(String sinkMethodSig : sinkMethodSigs) {
+            try {
+                sinkMethodSignatures.add(JavaIdentifierFactory.getInstance().parseMethodSignature(sinkMethodSig));
+            } catch(Exception e) {
+                System.err.println(CN + ": SootUp failed to parse 'sink' method signature '" + sinkMethodSig + "'.\n\n");
+                e.printStackTrace();
+                return null;
+            }
+        }
 
-        // Get the name of js class and timestamp from the runtime trace file dump and combine them
-        String jsFullClassName;
-        try {
-            List<String> temp = Tools.capturePathToClassName(runtimeTraceFile);
-            //String dumpDir = temp.get(0);
-            String timestamp = temp.get(1);
-            jsFullClassName = temp.get(2);
-            jsFullClassName = jsFullClassName + timestamp.replace("-", "").replace("_", "");
+        // The dependencies are read in the same pass so the class path slice does not have to scan again
+        long start = System.nanoTime();
+        ClassPathScan classPathScan = ClassPathScan.makeClassPathScan(config.getClassPath(), sinkMethodSignatures, config.getClassPathSlice());
+        if(classPathScan == null)
+            return null;
+        CallSiteScan scan = CallSiteScan.makeCallSiteScan(classPathScan);
+        System.out.println(CN + ": Scanned " + scan.getClassCount() + " classes for calls to " + sinkMethodSignatures.size() + " sinks in " 
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+        for(String target : scan.getTargets())
+            System.out.println(CN + ": Found " + scan.getCallSites(target).size() + " methods calling the sink " + target + ".");
+
+        Path outFile = FileHelpers.getPath(config.getOutputDirPath(), SINK_CALL_SITES_FILE_NAME);
+        try(Writer w = Files.newBufferedWriter(outFile)) {
+            for(CallSite c : scan.getCallSites())
+                w.write(c.getTarget() + "\t" + c.getClassName() + "\t" + c.getCaller() + "\n");
         } catch(Exception e) {
-            System.err.println(CN + ": Improperly formatted name for runtime trace file '" + runtimeTraceFile + "'.\n\n");
+            System.err.println(CN + ": Failed to write the sink call sites to '" + outFile + "'.\n\n");
             e.printStackTrace();
             return null;
         }
+        return scan;
+    }
+
+    /*
+     * The roots of the slice are the classes declaring the entry point, main, and sink methods, the classes
+     * calling a sink, and the classes declaring the methods recorded in the runtime traces. The subtypes of
+     * the classes entry points are discovered from are roots as well. Signatures that cannot be parsed are
+     * skipped as they are reported once the view is built.
+     */
+    private static ClassPathSlice makeClassPathSlice(Config config, MethodSignature defaultSinkMethodSignature, 
+            List<MethodSignature> traceSinkMethodSignatures, List<Trace> traces, CallSiteScan sinkPrescan) {
+        Set<MethodSignature> sinkMethodSignatures = new LinkedHashSet<>(traceSinkMethodSignatures);
+        if(defaultSinkMethodSignature != null)
+            sinkMethodSignatures.add(defaultSinkMethodSignature);
+        CallSiteScan sinkCallSites = sinkPrescan;
+        ClassPathScan classPathScan = sinkPrescan == null ? null : sinkPrescan.getClassPathScan();
+        if(classPathScan == null || !classPathScan.hasDependencies()) {
+            classPathScan = ClassPathScan.makeClassPathScan(config.getClassPath(), sinkMethodSignatures, true);
+            if(classPathScan == null)
+                return null;
+            if(sinkCallSites == null)
+                sinkCallSites = CallSiteScan.makeCallSiteScan(classPathScan);
+        }
+
+        Set<String> rootClasses = new LinkedHashSet<>();
+        for(String sig : Arrays.asList(config.getEntryPointMethodSig(), config.getMainMethodSig())) {
+            try {
+                if(!sig.isEmpty())
+                    rootClasses.add(JavaIdentifierFactory.getInstance().parseMethodSignature(sig).getDeclClassType().getFullyQualifiedName());
+            } catch(Exception e) {
+                continue;
+            }
+        }
+        for(MethodSignature sinkMethodSignature : sinkMethodSignatures)
+            rootClasses.add(sinkMethodSignature.getDeclClassType().getFullyQualifiedName());
+        for(CallSite callSite : sinkCallSites.getCallSites())
+            rootClasses.add(callSite.getClassName());
+        for(Trace trace : traces) {
+            for(MethodSignature m : trace.methodSigs)
+                rootClasses.add(m.getDeclClassType().getFullyQualifiedName());
+        }
+        List<String> rootSupertypes = new ArrayList<>();
+        for(Map<String,String> entry : config.getEntryPointEntries()) {
+            String subtypeOf = entry.get("subtype_of");
+            if(subtypeOf != null && !subtypeOf.isBlank())
+                rootSupertypes.add(subtypeOf.trim());
+        }
+        return ClassPathSlice.makeClassPathSlice(classPathScan, rootClasses, rootSupertypes);
+    }
+
+    public static Analysis makeAnalysis(Config config) {
+        return makeAnalysis(config, true, false, null);
+    }
+
+    /*
+     * Builds the analysis for the config. If withTraces is false the runtime traces of the config are 
+     * not read and run does nothing, leaving the traces to be given later through splice. If resume is
+     * true the call graph construction resumes from the checkpoint in the output directory if there is
+     * one for the same construction. If a sink prescan is given the runtime traces of sinks that are not 
+     * called anywhere on the class path are skipped.
+     */
+    public static Analysis makeAnalysis(Config config, boolean withTraces, boolean resume, CallSiteScan sinkPrescan) {
+        PhaseProfiler profiler = new PhaseProfiler("analysis", true);
+        List<Path> runtimeTraceFiles = new ArrayList<>();
+        List<String> traceSinkMethodSigs = new ArrayList<>();
+        List<String> jsFullClassNames = Collections.emptyList();
+        if(withTraces) {
+            if(config.getSinkEntries().isEmpty()) {
+                List<Path> files = listRuntimeTraceFiles(config.getRuntimeTraceFilePaths());
+                if(files == null)
+                    return null;
+                runtimeTraceFiles.addAll(files);
+                traceSinkMethodSigs.addAll(Collections.nCopies(files.size(), config.getSinkMethodSig()));
+            } else {
+                // Each sink is replaced by the runtime traces given for it
+                for(Map<String,String> entry : config.getSinkEntries()) {
+                    String sinkMethodSig = entry.get("sink_method_sig");
+                    String runtimeTraceFilePath = entry.get("runtime_trace_file_path");
+                    if(sinkMethodSig == null || sinkMethodSig.isBlank() || runtimeTraceFilePath == null || runtimeTraceFilePath.isBlank()) {
+                        System.err.println(CN + ": Every sinks entry requires a 'sink_method_sig' and a 'runtime_trace_file_path'.");
+                        return null;
+                    }
+                    List<Path> files = listRuntimeTraceFiles(Collections.singletonList(FileHelpers.getPath(runtimeTraceFilePath)));
+                    if(files == null)
+                        return null;
+                    runtimeTraceFiles.addAll(files);
+                    traceSinkMethodSigs.addAll(Collections.nCopies(files.size(), sinkMethodSig));
+                }
+            }
+            jsFullClassNames = getJsFullClassNames(runtimeTraceFiles);
+            if(jsFullClassNames == null)
+                return null;
+        }
+
+        // Fail before building the call graph rather than after
+        try {
+            CallGraphExporter.getFileExtension(config.getOutputFormat(), config.getOutputCompression());
+        } catch(Exception e) {
+            System.err.println(CN + ": " + e.getMessage());
+            return null;
+        }
+        if(!config.getOutputScope().equalsIgnoreCase(FULL_OUTPUT_SCOPE) && !config.getOutputScope().equalsIgnoreCase(CHOP_OUTPUT_SCOPE)) {
+            System.err.println(CN + ": Unsupported output scope given '" + config.getOutputScope() + "'.");
+            return null;
+        }
 
         if(config.getClassPath().isEmpty()) {
             System.err.println(CN + ": A non-empty class-path must be supplied.");
             return null;
         }
 
-        // Generate view of code to be analyzed
-        MutableJavaView view;
+        boolean pointsTo = config.getCallGraphAlgo().equalsIgnoreCase("pta");
+        if(pointsTo && config.getPointsToJrePath() == null) {
+            System.err.println(CN + ": The pta call graph algorithm requires the path to a Java 8 JRE.");
+            return null;
+        }
+        if(pointsTo && !config.getBodyInterceptorProfile().equalsIgnoreCase(SootTools.TYPED_BODY_INTERCEPTOR_PROFILE)) {
+            System.err.println(CN + ": The pta call graph algorithm requires the typed body interceptor profile.");
+            return null;
+        }
+
+        List<TimedBodyInterceptor> bodyInterceptors;
         try {
-            view = SootTools.makeJavaView(config.getClassPath());
+            bodyInterceptors = SootTools.makeTimedBodyInterceptors(SootTools.makeBodyInterceptors(config.getBodyInterceptorProfile()));
         } catch(Exception e) {
-            System.err.println(CN + ": SootUp failed to load classpath '" + config.getClassPath() + "'.\n\n");
+            System.err.println(CN + ": Failed to create the body interceptors for profile '" + config.getBodyInterceptorProfile() + "'.\n\n");
             e.printStackTrace();
             return null;
         }
 
+        // Grab the sink method signatures, the one of the config being optional when the sinks are given separately
+        MethodSignature defaultSinkMethodSignature = null;
+        if(!config.getSinkMethodSig().isEmpty() || config.getSinkEntries().isEmpty()) {
+            defaultSinkMethodSignature = parseMethodSignature(JavaIdentifierFactory.getInstance(), config.getSinkMethodSig(), "sink");
+            if(defaultSinkMethodSignature == null)
+                return null;
+        }
+        List<MethodSignature> traceSinkMethodSignatures = new ArrayList<>();
+        for(String sinkMethodSig : traceSinkMethodSigs) {
+            MethodSignature sinkMethodSignature = parseMethodSignature(JavaIdentifierFactory.getInstance(), sinkMethodSig, "sink");
+            if(sinkMethodSignature == null)
+                return null;
+            traceSinkMethodSignatures.add(sinkMethodSignature);
+        }
+
         // Read in and resolve the methods recorded during the runtime activity
-        Set<MethodSignature> runtimeTraceMethodSigs;
-        try {
-            runtimeTraceMethodSigs = new LinkedHashSet<>();
-            for(String methodSig : new LinkedHashSet<>(Files.readAllLines(runtimeTraceFile))) {
-                methodSig = methodSig.trim();
-                if(methodSig.isEmpty())
-                    continue;
-                runtimeTraceMethodSigs.add(view.getIdentifierFactory().parseMethodSignature(methodSig));
+        profiler.begin("trace_parse");
+        RuntimeTraceReader traceReader = new RuntimeTraceReader(JavaIdentifierFactory.getInstance());
+        List<Trace> traces = readRuntimeTraces(traceReader, runtimeTraceFiles, jsFullClassNames, traceSinkMethodSignatures);
+        profiler.end();
+        if(traces == null)
+            return null;
+        if(sinkPrescan != null) {
+            List<Trace> called = new ArrayList<>();
+            for(Trace trace : traces) {
+                if(sinkPrescan.getCallSites(trace.sinkMethodSignature.toString()).isEmpty()) {
+                    System.out.println(CN + ": Skipping the runtime trace " + trace.file + " as no method on the class path calls its sink " 
+                            + trace.sinkMethodSignature + ".");
+                } else {
+                    called.add(trace);
+                }
             }
+            traces = called;
+        }
+
+        // Only expose the classes that the code around the entry points and sinks depends on to SootUp
+        ClassPathSlice classPathSlice = null;
+        if(config.getClassPathSlice()) {
+            long start = System.nanoTime();
+            profiler.begin("class_path_slice");
+            classPathSlice = makeClassPathSlice(config, defaultSinkMethodSignature, traceSinkMethodSignatures, traces, sinkPrescan);
+            profiler.end();
+            if(classPathSlice == null)
+                return null;
+            profiler.addStat("class_path_classes", classPathSlice.getClassCount());
+            profiler.addStat("class_path_slice_classes", classPathSlice.size());
+            System.out.println(CN + ": Sliced the class path to " + classPathSlice.size() + " of " + classPathSlice.getClassCount() 
+                    + " classes in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+        }
+
+        // Generate view of code to be analyzed
+        AuxMutableJavaView view;
+        try {
+            profiler.begin("view");
+            view = SootTools.makeJavaView(config.getClassPath(), config.getClassPathIndexDirPath(), bodyInterceptors, 
+                    pointsTo ? config.getPointsToJrePath() : null, classPathSlice);
+            profiler.end();
         } catch(Exception e) {
-            System.err.println(CN + ": Failed to read in the runtime trace file '" + runtimeTraceFile + "'.\n\n");
+            System.err.println(CN + ": SootUp failed to load classpath '" + config.getClassPath() + "'.\n\n");
             e.printStackTrace();
             return null;
         }
 
-        if(runtimeTraceMethodSigs.isEmpty()) {
-            System.err.println(CN + ": No methods in the runtime trace file '" + runtimeTraceFile + "'.\n\n");
-            return null;
-        }
 
         CallGraphFilter cgFilter;
         try {
+            profiler.begin("filter_construction");
             cgFilter = CallGraphFilter.makeCallGraphFilter(config.getFilterDefaultPolicy(), config.getFilterEntries());
+            profiler.end();
         } catch(Exception e) {
             System.err.println(CN + ": Failed to load the call graph filter.\n\n");
             e.printStackTrace();
             return null;
         }
 
-        // Grab the sink method signature
-        MethodSignature sinkMethodSignature = parseMethodSignature(view, config.getSinkMethodSig(), "sink");
-        if(sinkMethodSignature == null)
+        // Resolve the bodies the call graph algorithm will likely need in parallel ahead of time
+        try {
+            long start = System.nanoTime();
+            profiler.begin("body_prewarm");
+            List<ClassType> prewarmClasses = SootTools.selectPrewarmClasses(view, cgFilter, config.getBodyPrewarm());
+            long bodies = prewarmClasses.isEmpty() ? 0 : SootTools.prewarmBodies(view, prewarmClasses, Runtime.getRuntime().availableProcessors());
+            profiler.end();
+            profiler.addStat("prewarmed_bodies", bodies);
+            if(!prewarmClasses.isEmpty()) {
+                System.out.println(CN + ": Prewarmed " + bodies + " bodies of " + prewarmClasses.size() + " classes in " 
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+            }
+        } catch(Exception e) {
+            System.err.println(CN + ": Failed to prewarm the method bodies.\n\n");
+            e.printStackTrace();
             return null;
+        }
 
-        // Resolve the entry point, main method (if needed), and build the call graph based on the given algorithm
+        // Resolve the entry points, the explicit one being optional when the entry points are discovered
+        boolean discoverEntries = !config.getEntryPointEntries().isEmpty();
+        MethodSignature entryMethodSignature = null;
+        if(!config.getEntryPointMethodSig().isEmpty() || !discoverEntries) {
+            entryMethodSignature = parseMethodSignature(view.getIdentifierFactory(), config.getEntryPointMethodSig(), "entry point");
+            if(entryMethodSignature == null)
+                return null;
+        }
+        Set<MethodSignature> entries = new LinkedHashSet<>();
+        if(entryMethodSignature != null)
+            entries.add(entryMethodSignature);
+        if(discoverEntries) {
+            try {
+                profiler.begin("entry_discovery");
+                List<EntryPointPattern> patterns = EntryPointPattern.makeEntryPointPatterns(config.getEntryPointEntries(), view);
+                entries.addAll(EntryPointPattern.findEntryPoints(view, patterns));
+                profiler.end();
+            } catch(Exception e) {
+                System.err.println(CN + ": Failed to discover the entry points.\n\n");
+                e.printStackTrace();
+                return null;
+            }
+            profiler.addStat("entry_points", entries.size());
+            System.out.println(CN + ": Discovered " + entries.size() + " entry points.");
+            if(entries.isEmpty()) {
+                System.err.println(CN + ": No entry points were discovered.");
+                return null;
+            }
+        }
+        List<MethodSignature> entryMethodSignatures = new ArrayList<>(entries);
+        if(entryMethodSignature == null)
+            entryMethodSignature = entryMethodSignatures.get(0);
+
+        // Resolve the main method (if needed) and build the call graph based on the given algorithm
         MethodSignature mainMethodSignature;
-        MethodSignature entryMethodSignature;
+        CallGraphBudget budget = new CallGraphBudget(config.getCallGraphMaxSeconds(), config.getCallGraphMaxHeapPercent(), 
+                config.getCallGraphMaxMethods());
+        CallGraphCheckpoint checkpoint = null;
+        if(config.getCallGraphCheckpointSeconds() > 0 && !config.getCallGraphAlgo().equalsIgnoreCase("pta")) {
+            // Only resume from a checkpoint of the same construction, the slice depending on the traces and sinks
+            String sliceDigest = "";
+            if(classPathSlice != null) {
+                try {
+                    sliceDigest = "\n" + FileHelpers.getHashOfString("SHA-256", String.join("\n", new TreeSet<>(classPathSlice.getClasses())));
+                } catch(Exception e) {
+                    System.err.println(CN + ": Failed to compute the digest of the class path slice.\n\n");
+                    e.printStackTrace();
+                    return null;
+                }
+            }
+            String key = config.getCallGraphAlgo().toLowerCase() + "\n" + config.getEntryPointMethodSig() + "\n" + config.getMainMethodSig() 
+                    + "\n" + config.getClassPath() + "\n" + config.getBodyInterceptorProfile() + (discoverEntries ? "\n" + entryMethodSignatures : "") 
+                    + sliceDigest;
+            checkpoint = new CallGraphCheckpoint(FileHelpers.getPath(config.getOutputDirPath(), CHECKPOINT_FILE_NAME), 
+                    config.getCallGraphCheckpointSeconds(), key);
+            if(resume) {
+                try {
+                    if(checkpoint.load(view.getIdentifierFactory()))
+                        System.out.println(CN + ": Resuming the call graph construction from '" + checkpoint.getFile() + "'.");
+                    else
+                        System.out.println(CN + ": No checkpoint of this call graph construction found. Starting from the beginning.");
+                } catch(Exception e) {
+                    System.err.println(CN + ": Failed to read the call graph checkpoint '" + checkpoint.getFile() 
+                            + "'. Starting from the beginning.\n\n");
+                    e.printStackTrace();
+                }
+            }
+        } else if(config.getCallGraphCheckpointSeconds() > 0) {
+            System.err.println(CN + ": Warning: Checkpoints are not supported by the pta call graph algorithm.");
+        }
         CallGraphAlgorithm cga;
-        CallGraphWrapper callGraph;
+        List<MethodSignature> rootMethodSignatures;
+        int threads = Runtime.getRuntime().availableProcessors();
         switch(config.getCallGraphAlgo().toLowerCase()) {
             case "cha":
-                entryMethodSignature = parseMethodSignature(view, config.getEntryPointMethodSig(), "entry point");
-                if(entryMethodSignature == null)
-                    return null;
+            case "parallel_cha":
                 mainMethodSignature = null;
-                cga = new ClassHierarchyAnalysisAlgorithm(view);
-                callGraph = new CallGraphWrapper((GraphBasedCallGraph)cga.initialize(Collections.singletonList(entryMethodSignature)));
-                callGraph.applyFilter(cgFilter, view);
+                if(config.getCallGraphAlgo().equalsIgnoreCase("cha"))
+                    cga = new BudgetedClassHierarchyAnalysisAlgorithm(view, budget, checkpoint);
+                else
+                    cga = new ParallelClassHierarchyAnalysisAlgorithm(view, budget, checkpoint, threads);
+                rootMethodSignatures = entryMethodSignatures;
                 break;
             case "rta":
-                entryMethodSignature = parseMethodSignature(view, config.getEntryPointMethodSig(), "entry point");
-                if(entryMethodSignature == null) {
-                    return null;
+            case "parallel_rta":
+                // Without a main method the discovered entry points are the roots of the call graph
+                mainMethodSignature = null;
+                if(!config.getMainMethodSig().isEmpty() || !discoverEntries) {
+                    mainMethodSignature = parseMethodSignature(view.getIdentifierFactory(), config.getMainMethodSig(), "main");
+                    if(mainMethodSignature == null)
+                        return null;
+                }
+                if(config.getCallGraphAlgo().equalsIgnoreCase("rta"))
+                    cga = new BudgetedRapidTypeAnalysisAlgorithm(view, budget, checkpoint);
+                else
+                    cga = new ParallelRapidTypeAnalysisAlgorithm(view, budget, checkpoint, threads);
+                if(mainMethodSignature == null) {
+                    rootMethodSignatures = entryMethodSignatures;
+                } else if(discoverEntries) {
+                    rootMethodSignatures = new ArrayList<>();
+                    rootMethodSignatures.add(mainMethodSignature);
+                    entryMethodSignatures.stream().filter(m -> !m.equals(rootMethodSignatures.get(0))).forEach(rootMethodSignatures::add);
+                } else {
+                    rootMethodSignatures = Collections.singletonList(mainMethodSignature);
                 }
-                mainMethodSignature = parseMethodSignature(view, config.getMainMethodSig(), "main");
+                break;
+            case "pta":
+                mainMethodSignature = parseMethodSignature(view.getIdentifierFactory(), config.getMainMethodSig(), "main");
                 if(mainMethodSignature == null)
                     return null;
-                cga = new RapidTypeAnalysisAlgorithm(view);
-                callGraph = new CallGraphWrapper((GraphBasedCallGraph)cga.initialize(Collections.singletonList(mainMethodSignature)));
-                callGraph.applyFilter(cgFilter, view);
+                try {
+                    cga = new BudgetedPointsToAnalysisAlgorithm(view, config.getPointsToPattern(), budget);
+                } catch(IllegalArgumentException e) {
+                    System.err.println(CN + ": " + e.getMessage());
+                    return null;
+                }
+                if(discoverEntries) {
+                    System.err.println(CN + ": Warning: The pta call graph algorithm only starts from the main method so the discovered "
+                            + "entry points are only in the call graph if the main method reaches them.");
+                }
+                rootMethodSignatures = Collections.singletonList(mainMethodSignature);
                 break;
             default:
                 System.err.println(CN + ": Unsupported call graph algorithm given '" + config.getCallGraphAlgo() + "''.");
                 return null;
         }
 
-        return new Analysis(view, jsFullClassName, runtimeTraceMethodSigs, sinkMethodSignature, mainMethodSignature, entryMethodSignature, callGraph, config);
+        ExtensibleCallGraphAlgorithm extension = null;
+        if(config.getTraceExtension()) {
+            if(cga instanceof ExtensibleCallGraphAlgorithm) {
+                extension = (ExtensibleCallGraphAlgorithm)cga;
+                extension.setExtensible(true);
+            } else {
+                System.err.println(CN + ": Warning: The " + config.getCallGraphAlgo() + " call graph algorithm cannot extend the call graph "
+                        + "from the runtime traces.");
+            }
+        }
+
+        profiler.begin("call_graph_build");
+        CallGraphWrapper callGraph = new CallGraphWrapper((GraphBasedCallGraph)cga.initialize(rootMethodSignatures));
+        profiler.end();
+        profiler.addStat("built_methods", callGraph.getMethodSignatures().size());
+        profiler.addStat("built_calls", callGraph.callCount());
+        profiler.addStat("built_partial", budget.getExceeded() == null ? 0 : 1);
+        if(checkpoint != null)
+            profiler.addStat("checkpoint_writes", checkpoint.getWrites());
+        if(budget.getExceeded() != null) {
+            System.err.println(CN + ": Warning: Stopped building the call graph early. " + budget.getExceeded() 
+                    + " Every output will be marked as built from a partial call graph.");
+            if(checkpoint != null)
+                System.err.println(CN + ": The call graph construction can be resumed from '" + checkpoint.getFile() + "'.");
+        }
+
+        profiler.begin("apply_filter");
+        int removedCalls = callGraph.applyFilter(cgFilter, view);
+        profiler.end();
+        profiler.addStat("filter_removed_calls", removedCalls);
+        profiler.addStat("filtered_calls", callGraph.callCount());
+
+        List<PathQuery> pathQueries;
+        try {
+            pathQueries = PathQuery.makePathQueries(config.getPathQueryEntries(), entryMethodSignature, view.getIdentifierFactory());
+        } catch(Exception e) {
+            System.err.println(CN + ": Failed to load the path queries.\n\n");
+            e.printStackTrace();
+            return null;
+        }
+
+        // The call graph only holds signatures so the resolved classes and their bodies are no longer needed
+        profiler.begin("release_bodies");
+        int released = view.releaseBodies();
+        profiler.end();
+        profiler.addStat("released_classes", released);
+        System.out.println(CN + ": Released " + released + " resolved classes after building the call graph.");
+
+        return new Analysis(view, traces, defaultSinkMethodSignature, mainMethodSignature, entryMethodSignature, entryMethodSignatures, discoverEntries, 
+                callGraph, extension, cgFilter, bodyInterceptors, pathQueries, config, profiler, traceReader, budget.getExceeded());
     }
-    
+
+    private static List<Path> listRuntimeTraceFiles(List<Path> paths) {
+        List<Path> runtimeTraceFiles = new ArrayList<>();
+        try {
+            for(Path path : paths) {
+                if(Files.isDirectory(path)) {
+                    List<Path> entries = FileHelpers.getDirectoryEntries(path);
+                    Collections.sort(entries);
+                    for(Path entry : entries) {
+                        if(Files.isRegularFile(entry))
+                            runtimeTraceFiles.add(entry);
+                    }
+                } else {
+                    runtimeTraceFiles.add(path);
+                }
+            }
+        } catch(Exception e) {
+            System.err.println(CN + ": Failed to list the runtime trace files.\n\n");
+            e.printStackTrace();
+            return null;
+        }
+        if(runtimeTraceFiles.isEmpty()) {
+            System.err.println(CN + ": No runtime trace files given.");
+            return null;
+        }
+        return runtimeTraceFiles;
+    }
+
+    private static List<String> getJsFullClassNames(List<Path> runtimeTraceFiles) {
+        List<String> jsFullClassNames = new ArrayList<>();
+        for(Path runtimeTraceFile : runtimeTraceFiles) {
+            if(!FileHelpers.checkRWFileExists(runtimeTraceFile)) {
+                System.err.println(CN + ": Failed to verify the existence of the runtime trace file '" + runtimeTraceFile + "'.");
+                return null;
+            }
+
+            // Get the name of js class and timestamp from the runtime trace file dump and combine them
+            String jsFullClassName;
+            try {
+                List<String> temp = Tools.capturePathToClassName(runtimeTraceFile);
+                //String dumpDir = temp.get(0);
+                String timestamp = temp.get(1);
+                jsFullClassName = temp.get(2);
+                jsFullClassName = jsFullClassName + timestamp.replace("-", "").replace("_", "");
+            } catch(Exception e) {
+                System.err.println(CN + ": Improperly formatted name for runtime trace file '" + runtimeTraceFile + "'.\n\n");
+                e.printStackTrace();
+                return null;
+            }
+            if(jsFullClassNames.contains(jsFullClassName)) {
+                System.err.println(CN + ": More than one runtime trace file would be written to the output '" + jsFullClassName + "'.");
+                return null;
+            }
+            jsFullClassNames.add(jsFullClassName);
+        }
+        return jsFullClassNames;
+    }
+
+    private static List<Trace> readRuntimeTraces(RuntimeTraceReader traceReader, List<Path> runtimeTraceFiles, List<String> jsFullClassNames, 
+            List<MethodSignature> sinkMethodSignatures) {
+        List<Trace> traces = new ArrayList<>();
+        for(int i = 0; i < runtimeTraceFiles.size(); i++) {
+            Path runtimeTraceFile = runtimeTraceFiles.get(i);
+            Set<MethodSignature> runtimeTraceMethodSigs;
+            try {
+                runtimeTraceMethodSigs = traceReader.read(runtimeTraceFile);
+            } catch(Exception e) {
+                System.err.println(CN + ": Failed to read in the runtime trace file '" + runtimeTraceFile + "'.\n\n");
+                e.printStackTrace();
+                return null;
+            }
+
+            if(runtimeTraceMethodSigs.isEmpty()) {
+                System.err.println(CN + ": No methods in the runtime trace file '" + runtimeTraceFile + "'.\n\n");
+                return null;
+            }
+            traces.add(new Trace(runtimeTraceFile, jsFullClassNames.get(i), sinkMethodSignatures.get(i), runtimeTraceMethodSigs));
+        }
+        return traces;
+    }
+
+    private static final class Trace {
+        private final Path file;
+        private final String jsFullClassName;
+        private final MethodSignature sinkMethodSignature;
+        private final Set<MethodSignature> methodSigs;
+
+        private Trace(Path file, String jsFullClassName, MethodSignature sinkMethodSignature, Set<MethodSignature> methodSigs) {
+            this.file = file;
+            this.jsFullClassName = jsFullClassName;
+            this.sinkMethodSignature = sinkMethodSignature;
+            this.methodSigs = methodSigs;
+        }
+    }
+
 }
@@ -27,6 +27,7 @@ import java.io.InputStream;
 import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -41,39 +42,96 @@ import org.yaml.snakeyaml.representer.Representer;
 import com.snc.secres.tool.common.io.FileHelpers;
 import com.snc.secres.tool.common.io.PrintStreamUnixEOL;
 
+import sootup.callgraph.CallGraphExporter;
+
 public class Config {
 
     private String class_path;
+    private String class_path_index_dir_path;
+    private Boolean class_path_slice;
     private String runtime_trace_file_path;
+    private List<String> runtime_trace_file_paths;
     private String output_dir_path;
+    private String output_format;
+    private String output_compression;
+    private String output_scope;
+    private Integer chop_max_depth;
+    private Integer chop_max_fan_out;
+    private Boolean reachability_index;
+    private Boolean profile_report;
     private String call_graph_algo;
+    private Integer call_graph_max_seconds;
+    private Integer call_graph_max_heap_percent;
+    private Integer call_graph_max_methods;
+    private Integer call_graph_checkpoint_seconds;
+    private String points_to_pattern;
+    private String points_to_jre_path;
+    private String body_interceptor_profile;
+    private String body_prewarm;
     private String main_method_sig;
     private String entry_point_method_sig;
+    private List<Map<String,String>> entry_points;
     private String sink_method_sig;
+    private List<Map<String,String>> sinks;
+    private Boolean sink_prescan;
+    private Boolean trace_extension;
     private String filter_default_policy;
     private List<Map<String,String>> filter;
+    private List<Map<String,String>> path_queries;
 
     public Config() {}
 
-    public Config(String class_path, String runtime_trace_file_path, String output_dir_path, String call_graph_algo, 
-            String main_method_sig, String entry_point_method_sig, String sink_method_sig, String filter_default_policy, List<Map<String,String>> filter) {
+    public Config(String class_path, String class_path_index_dir_path, Boolean class_path_slice, String runtime_trace_file_path, List<String> runtime_trace_file_paths, 
+            String output_dir_path, String output_format, 
+            String output_compression, String output_scope, Integer chop_max_depth, Integer chop_max_fan_out, Boolean reachability_index, Boolean profile_report, 
+            String call_graph_algo, Integer call_graph_max_seconds, Integer call_graph_max_heap_percent, Integer call_graph_max_methods, Integer call_graph_checkpoint_seconds, String points_to_pattern, String points_to_jre_path, 
+            String body_interceptor_profile, String body_prewarm, String main_method_sig, String entry_point_method_sig, List<Map<String,String>> entry_points, String sink_method_sig, List<Map<String,String>> sinks, Boolean sink_prescan, Boolean trace_extension, String filter_default_policy, List<Map<String,String>> filter, 
+            List<Map<String,String>> path_queries) {
         this.class_path = class_path;
+        this.class_path_index_dir_path = class_path_index_dir_path;
+        this.class_path_slice = class_path_slice;
         this.runtime_trace_file_path = runtime_trace_file_path;
+        this.runtime_trace_file_paths = runtime_trace_file_paths;
         this.output_dir_path = output_dir_path;
+        this.output_format = output_format;
+        this.output_compression = output_compression;
+        this.output_scope = output_scope;
+        this.chop_max_depth = chop_max_depth;
+        this.chop_max_fan_out = chop_max_fan_out;
+        this.reachability_index = reachability_index;
+        this.profile_report = profile_report;
         this.call_graph_algo = call_graph_algo;
+        this.call_graph_max_seconds = call_graph_max_seconds;
+        this.call_graph_max_heap_percent = call_graph_max_heap_percent;
+        this.call_graph_max_methods = call_graph_max_methods;
+        this.call_graph_checkpoint_seconds = call_graph_checkpoint_seconds;
+        this.points_to_pattern = points_to_pattern;
+        this.points_to_jre_path = points_to_jre_path;
+        this.body_interceptor_profile = body_interceptor_profile;
+        this.body_prewarm = body_prewarm;
         this.main_method_sig = main_method_sig;
         this.entry_point_method_sig = entry_point_method_sig;
+        this.entry_points = entry_points;
         this.sink_method_sig = sink_method_sig;
+        this.sinks = sinks;
+        this.sink_prescan = sink_prescan;
+        this.trace_extension = trace_extension;
         this.filter_default_policy = filter_default_policy;
         this.filter = filter;
+        this.path_queries = path_queries;
     }
     
     @Override
     public String toString() {
-        return "Config [class_path=" + class_path + ", runtime_trace_file_path=" + runtime_trace_file_path
-                + ", output_dir_path=" + output_dir_path + ", call_graph_algo=" + call_graph_algo + ", main_method_sig="
-                + main_method_sig + ", entry_point_method_sig=" + entry_point_method_sig + ", sink_method_sig="
-                + sink_method_sig + ", filter_default_policy=" + filter_default_policy + ", filter=" + filter + "]";
+        return "Config [class_path=" + class_path + ", class_path_index_dir_path=" + class_path_index_dir_path + ", class_path_slice=" + class_path_slice
+                + ", runtime_trace_file_path=" + runtime_trace_file_path + ", runtime_trace_file_paths=" + runtime_trace_file_paths
+                + ", output_dir_path=" + output_dir_path + ", output_format=" + output_format + ", output_compression=" 
+                + output_compression + ", output_scope=" + output_scope + ", chop_max_depth=" + chop_max_depth + ", chop_max_fan_out=" 
+                + chop_max_fan_out + ", reachability_index=" + reachability_index + ", profile_report=" + profile_report + ", call_graph_algo=" + call_graph_algo 
+                + ", call_graph_max_seconds=" + call_graph_max_seconds + ", call_graph_max_heap_percent=" + call_graph_max_heap_percent 
+                + ", call_graph_max_methods=" + call_graph_max_methods + ", call_graph_checkpoint_seconds=" + call_graph_checkpoint_seconds + ", points_to_pattern=" + points_to_pattern + ", points_to_jre_path=" + points_to_jre_path + ", body_interceptor_profile=" 
+                + body_interceptor_profile + ", body_prewarm=" + body_prewarm + ", main_method_sig=" + main_method_sig + ", entry_point_method_sig=" + entry_point_method_sig + ", entry_points=" + entry_points + ", sink_method_sig="
+                + sink_method_sig + ", sinks=" + sinks + ", sink_prescan=" + sink_prescan + ", trace_extension=" + trace_extension + ", filter_default_policy=" + filter_default_policy + ", filter=" + filter + ", path_queries=" + path_queries + "]";
     }
 
     @Override
@@ -81,14 +139,37 @@ public class Config {
         final int prime = 31;
         int result = 1;
         result = prime * result + ((class_path == null) ? 0 : class_path.hashCode());
+        result = prime * result + ((class_path_index_dir_path == null) ? 0 : class_path_index_dir_path.hashCode());
+        result = prime * result + ((class_path_slice == null) ? 0 : class_path_slice.hashCode());
         result = prime * result + ((runtime_trace_file_path == null) ? 0 : runtime_trace_file_path.hashCode());
+        result = prime * result + ((runtime_trace_file_paths == null) ? 0 : runtime_trace_file_paths.hashCode());
         result = prime * result + ((output_dir_path == null) ? 0 : output_dir_path.hashCode());
+        result = prime * result + ((output_format == null) ? 0 : output_format.hashCode());
+        result = prime * result + ((output_compression == null) ? 0 : output_compression.hashCode());
+        result = prime * result + ((output_scope == null) ? 0 : output_scope.hashCode());
+        result = prime * result + ((chop_max_depth == null) ? 0 : chop_max_depth.hashCode());
+        result = prime * result + ((chop_max_fan_out == null) ? 0 : chop_max_fan_out.hashCode());
+        result = prime * result + ((reachability_index == null) ? 0 : reachability_index.hashCode());
+        result = prime * result + ((profile_report == null) ? 0 : profile_report.hashCode());
         result = prime * result + ((call_graph_algo == null) ? 0 : call_graph_algo.hashCode());
+        result = prime * result + ((call_graph_max_seconds == null) ? 0 : call_graph_max_seconds.hashCode());
+        result = prime * result + ((call_graph_max_heap_percent == null) ? 0 : call_graph_max_heap_percent.hashCode());
+        result = prime * result + ((call_graph_max_methods == null) ? 0 : call_graph_max_methods.hashCode());
+        result = prime * result + ((call_graph_checkpoint_seconds == null) ? 0 : call_graph_checkpoint_seconds.hashCode());
+        result = prime * result + ((points_to_pattern == null) ? 0 : points_to_pattern.hashCode());
+        result = prime * result + ((points_to_jre_path == null) ? 0 : points_to_jre_path.hashCode());
+        result = prime * result + ((body_interceptor_profile == null) ? 0 : body_interceptor_profile.hashCode());
+        result = prime * result + ((body_prewarm == null) ? 0 : body_prewarm.hashCode());
         result = prime * result + ((main_method_sig == null) ? 0 : main_method_sig.hashCode());
         result = prime * result + ((entry_point_method_sig == null) ? 0 : entry_point_method_sig.hashCode());
+        result = prime * result + ((entry_points == null) ? 0 : entry_points.hashCode());
         result = prime * result + ((sink_method_sig == null) ? 0 : sink_method_sig.hashCode());
+        result = prime * result + ((sinks == null) ? 0 : sinks.hashCode());
+        result = prime * result + ((sink_prescan == null) ? 0 : sink_prescan.hashCode());
+        result = prime * result + ((trace_extension == null) ? 0 : trace_extension.hashCode());
         result = prime * result + ((filter_default_policy == null) ? 0 : filter_default_policy.hashCode());
         result = prime * result + ((filter == null) ? 0 : filter.hashCode());
+        result = prime * result + ((path_queries == null) ? 0 : path_queries.hashCode());
         return result;
     }
 
@@ -106,21 +187,111 @@ public class Config {
                 return false;
         } else if (!class_path.equals(other.class_path))
             return false;
+        if (class_path_index_dir_path == null) {
+            if (other.class_path_index_dir_path != null)
+                return false;
+        } else if (!class_path_index_dir_path.equals(other.class_path_index_dir_path))
+            return false;
+        if (class_path_slice == null) {
+            if (other.class_path_slice != null)
+                return false;
+        } else if (!class_path_slice.equals(other.class_path_slice))
+            return false;
         if (runtime_trace_file_path == null) {
             if (other.runtime_trace_file_path != null)
                 return false;
         } else if (!runtime_trace_file_path.equals(other.runtime_trace_file_path))
             return false;
+        if (runtime_trace_file_paths == null) {
+            if (other.runtime_trace_file_paths != null)
+                return false;
+        } else if (!runtime_trace_file_paths.equals(other.runtime_trace_file_paths))
+            return false;
         if (output_dir_path == null) {
             if (other.output_dir_path != null)
                 return false;
         } else if (!output_dir_path.equals(other.output_dir_path))
             return false;
+        if (output_format == null) {
+            if (other.output_format != null)
+                return false;
+        } else if (!output_format.equals(other.output_format))
+            return false;
+        if (output_compression == null) {
+            if (other.output_compression != null)
+                return false;
+        } else if (!output_compression.equals(other.output_compression))
+            return false;
+        if (output_scope == null) {
+            if (other.output_scope != null)
+                return false;
+        } else if (!output_scope.equals(other.output_scope))
+            return false;
+        if (chop_max_depth == null) {
+            if (other.chop_max_depth != null)
+                return false;
+        } else if (!chop_max_depth.equals(other.chop_max_depth))
+            return false;
+        if (chop_max_fan_out == null) {
+            if (other.chop_max_fan_out != null)
+                return false;
+        } else if (!chop_max_fan_out.equals(other.chop_max_fan_out))
+            return false;
+        if (reachability_index == null) {
+            if (other.reachability_index != null)
+                return false;
+        } else if (!reachability_index.equals(other.reachability_index))
+            return false;
+        if (profile_report == null) {
+            if (other.profile_report != null)
+                return false;
+        } else if (!profile_report.equals(other.profile_report))
+            return false;
         if (call_graph_algo == null) {
             if (other.call_graph_algo != null)
                 return false;
         } else if (!call_graph_algo.equals(other.call_graph_algo))
             return false;
+        if (call_graph_max_seconds == null) {
+            if (other.call_graph_max_seconds != null)
+                return false;
+        } else if (!call_graph_max_seconds.equals(other.call_graph_max_seconds))
+            return false;
+        if (call_graph_max_heap_percent == null) {
+            if (other.call_graph_max_heap_percent != null)
+                return false;
+        } else if (!call_graph_max_heap_percent.equals(other.call_graph_max_heap_percent))
+            return false;
+        if (call_graph_max_methods == null) {
+            if (other.call_graph_max_methods != null)
+                return false;
+        } else if (!call_graph_max_methods.equals(other.call_graph_max_methods))
+            return false;
+        if (call_graph_checkpoint_seconds == null) {
+            if (other.call_graph_checkpoint_seconds != null)
+                return false;
+        } else if (!call_graph_checkpoint_seconds.equals(other.call_graph_checkpoint_seconds))
+            return false;
+        if (points_to_pattern == null) {
+            if (other.points_to_pattern != null)
+                return false;
+        } else if (!points_to_pattern.equals(other.points_to_pattern))
+            return false;
+        if (points_to_jre_path == null) {
+            if (other.points_to_jre_path != null)
+                return false;
+        } else if (!points_to_jre_path.equals(other.points_to_jre_path))
+            return false;
+        if (body_interceptor_profile == null) {
+            if (other.body_interceptor_profile != null)
+                return false;
+        } else if (!body_interceptor_profile.equals(other.body_interceptor_profile))
+            return false;
+        if (body_prewarm == null) {
+            if (other.body_prewarm != null)
+                return false;
+        } else if (!body_prewarm.equals(other.body_prewarm))
+            return false;
         if (main_method_sig == null) {
             if (other.main_method_sig != null)
                 return false;
@@ -131,11 +302,31 @@ public class Config {
                 return false;
         } else if (!entry_point_method_sig.equals(other.entry_point_method_sig))
             return false;
+        if (entry_points == null) {
+            if (other.entry_points != null)
+                return false;
+        } else if (!entry_points.equals(other.entry_points))
+            return false;
         if (sink_method_sig == null) {
             if (other.sink_method_sig != null)
                 return false;
         } else if (!sink_method_sig.equals(other.sink_method_sig))
             return false;
+        if (sinks == null) {
+            if (other.sinks != null)
+                return false;
+        } else if (!sinks.equals(other.sinks))
+            return false;
+        if (sink_prescan == null) {
+            if (other.sink_prescan != null)
+                return false;
+        } else if (!sink_prescan.equals(other.sink_prescan))
+            return false;
+        if (trace_extension == null) {
+            if (other.trace_extension != null)
+                return false;
+        } else if (!trace_extension.equals(other.trace_extension))
+            return false;
         if (filter_default_policy == null) {
             if (other.filter_default_policy != null)
                 return false;
@@ -146,6 +337,11 @@ public class Config {
                 return false;
         } else if (!filter.equals(other.filter))
             return false;
+        if (path_queries == null) {
+            if (other.path_queries != null)
+                return false;
+        } else if (!path_queries.equals(other.path_queries))
+            return false;
         return true;
     }
 
@@ -153,18 +349,106 @@ public class Config {
         return class_path == null || class_path.isBlank() ? "" : class_path;
     }
 
+    public Path getClassPathIndexDirPath() {
+        return class_path_index_dir_path == null || class_path_index_dir_path.isBlank() ? null : FileHelpers.getPath(class_path_index_dir_path);
+    }
+
+    public boolean getClassPathSlice() {
+        return class_path_slice == null ? false : class_path_slice;
+    }
+
     public Path getRuntimeTraceFilePath() {
         return runtime_trace_file_path == null || runtime_trace_file_path.isBlank() ? FileHelpers.getPath("./config.yaml") : FileHelpers.getPath(runtime_trace_file_path);
     }
 
+    /** The runtime trace files and directories of runtime trace files if given and otherwise the single runtime trace file. */
+    public List<Path> getRuntimeTraceFilePaths() {
+        if(runtime_trace_file_paths == null || runtime_trace_file_paths.isEmpty())
+            return Collections.singletonList(getRuntimeTraceFilePath());
+        List<Path> ret = new ArrayList<>();
+        for(String path : runtime_trace_file_paths) {
+            if(path != null && !path.isBlank())
+                ret.add(FileHelpers.getPath(path));
+        }
+        return ret;
+    }
+
     public Path getOutputDirPath() {
         return output_dir_path == null || output_dir_path.isBlank() ? FileHelpers.getPath(".") : FileHelpers.getPath(output_dir_path);
     }
 
+    public String getOutputFormat() {
+        return output_format == null || output_format.isBlank() ? CallGraphExporter.DOT_FORMAT : output_format;
+    }
+
+    public String getOutputCompression() {
+        return output_compression == null || output_compression.isBlank() ? CallGraphExporter.NO_COMPRESSION : output_compression;
+    }
+
+    public String getOutputScope() {
+        return output_scope == null || output_scope.isBlank() ? Analysis.FULL_OUTPUT_SCOPE : output_scope;
+    }
+
+    public int getChopMaxDepth() {
+        //0 means no limit
+        return chop_max_depth == null || chop_max_depth < 0 ? 0 : chop_max_depth;
+    }
+
+    public int getChopMaxFanOut() {
+        //0 means no limit
+        return chop_max_fan_out == null || chop_max_fan_out < 0 ? 0 : chop_max_fan_out;
+    }
+
+    public boolean getReachabilityIndex() {
+        return reachability_index == null ? false : reachability_index;
+    }
+
+    public boolean getProfileReport() {
+        return profile_report == null ? false : profile_report;
+    }
+
     public String getCallGraphAlgo() {
         return call_graph_algo == null || call_graph_algo.isBlank() ? "rta" : call_graph_algo;
     }
 
+    public int getCallGraphMaxSeconds() {
+        //0 means no limit
+        return call_graph_max_seconds == null || call_graph_max_seconds < 0 ? 0 : call_graph_max_seconds;
+    }
+
+    public int getCallGraphMaxHeapPercent() {
+        //0 means no limit
+        return call_graph_max_heap_percent == null || call_graph_max_heap_percent < 0 || call_graph_max_heap_percent >= 100 
+            ? 0 : call_graph_max_heap_percent;
+    }
+
+    public int getCallGraphMaxMethods() {
+        //0 means no limit
+        return call_graph_max_methods == null || call_graph_max_methods < 0 ? 0 : call_graph_max_methods;
+    }
+
+    public int getCallGraphCheckpointSeconds() {
+        return call_graph_checkpoint_seconds == null || call_graph_checkpoint_seconds < 0 ? 0 : call_graph_checkpoint_seconds;
+    }
+
+    public String getPointsToPattern() {
+        return points_to_pattern == null || points_to_pattern.isBlank() ? "insens" : points_to_pattern;
+    }
+
+    public String getPointsToJrePath() {
+        return points_to_jre_path == null || points_to_jre_path.isBlank() ? null : points_to_jre_path;
+    }
+
+    public String getBodyInterceptorProfile() {
+        if(body_interceptor_profile == null || body_interceptor_profile.isBlank())
+            return getCallGraphAlgo().equalsIgnoreCase("pta") ? SootTools.TYPED_BODY_INTERCEPTOR_PROFILE : SootTools.PRECISE_BODY_INTERCEPTOR_PROFILE;
+        return body_interceptor_profile;
+    }
+
+    public String getBodyPrewarm() {
+        return body_prewarm == null || body_prewarm.isBlank() ? SootTools.NO_BODY_PREWARM : body_prewarm;
+    }
+
     public String getMainMethodSig() {
         return main_method_sig == null || main_method_sig.isBlank() ? "" : main_method_sig;
     }
@@ -173,10 +457,26 @@ public class Config {
         return entry_point_method_sig == null || entry_point_method_sig.isBlank() ? "" : entry_point_method_sig;
     }
 
+    public List<Map<String,String>> getEntryPointEntries() {
+        return entry_points == null ? Collections.emptyList() : entry_points;
+    }
+
     public String getSinkMethodSig() {
         return sink_method_sig == null || sink_method_sig.isBlank() ? "" : sink_method_sig;
     }
 
+    public List<Map<String,String>> getSinkEntries() {
+        return sinks == null ? Collections.emptyList() : sinks;
+    }
+
+    public boolean getSinkPrescan() {
+        return sink_prescan == null ? false : sink_prescan;
+    }
+
+    public boolean getTraceExtension() {
+        return trace_extension == null ? false : trace_extension;
+    }
+
     public String getFilterDefaultPolicy() {
         return filter_default_policy == null ? "allow" : filter_default_policy;
     }
@@ -185,24 +485,100 @@ public class Config {
         return filter == null ? Collections.emptyList() : filter;
     }
 
+    public List<Map<String,String>> getPathQueryEntries() {
+        return path_queries == null ? Collections.emptyList() : path_queries;
+    }
+
     // For yaml
 
     public String getClass_path() {
         return class_path;
     }
 
+    public String getClass_path_index_dir_path() {
+        return class_path_index_dir_path;
+    }
+
+    public Boolean getClass_path_slice() {
+        return class_path_slice;
+    }
+
     public String getRuntime_trace_file_path() {
         return runtime_trace_file_path;
     }
 
+    public List<String> getRuntime_trace_file_paths() {
+        return runtime_trace_file_paths;
+    }
+
     public String getOutput_dir_path() {
         return output_dir_path;
     }
 
+    public String getOutput_format() {
+        return output_format;
+    }
+
+    public String getOutput_compression() {
+        return output_compression;
+    }
+
+    public String getOutput_scope() {
+        return output_scope;
+    }
+
+    public Integer getChop_max_depth() {
+        return chop_max_depth;
+    }
+
+    public Integer getChop_max_fan_out() {
+        return chop_max_fan_out;
+    }
+
+    public Boolean getReachability_index() {
+        return reachability_index;
+    }
+
+    public Boolean getProfile_report() {
+        return profile_report;
+    }
+
     public String getCall_graph_algo() {
         return call_graph_algo;
     }
 
+    public Integer getCall_graph_max_seconds() {
+        return call_graph_max_seconds;
+    }
+
+    public Integer getCall_graph_max_heap_percent() {
+        return call_graph_max_heap_percent;
+    }
+
+    public Integer getCall_graph_max_methods() {
+        return call_graph_max_methods;
+    }
+
+    public Integer getCall_graph_checkpoint_seconds() {
+        return call_graph_checkpoint_seconds;
+    }
+
+    public String getPoints_to_pattern() {
+        return points_to_pattern;
+    }
+
+    public String getPoints_to_jre_path() {
+        return points_to_jre_path;
+    }
+
+    public String getBody_interceptor_profile() {
+        return body_interceptor_profile;
+    }
+
+    public String getBody_prewarm() {
+        return body_prewarm;
+    }
+
     public String getMain_method_sig() {
         return main_method_sig;
     }
@@ -211,10 +587,26 @@ public class Config {
         return entry_point_method_sig;
     }
 
+    public List<Map<String, String>> getEntry_points() {
+        return entry_points;
+    }
+
     public String getSink_method_sig() {
         return sink_method_sig;
     }
 
+    public List<Map<String, String>> getSinks() {
+        return sinks;
+    }
+
+    public Boolean getSink_prescan() {
+        return sink_prescan;
+    }
+
+    public Boolean getTrace_extension() {
+        return trace_extension;
+    }
+
     public String getFilter_default_policy() {
         return filter_default_policy;
     }
@@ -223,22 +615,98 @@ public class Config {
         return filter;
     }
 
+    public List<Map<String, String>> getPath_queries() {
+        return path_queries;
+    }
+
     public void setClass_path(String class_path) {
         this.class_path = class_path;
     }
 
+    public void setClass_path_index_dir_path(String class_path_index_dir_path) {
+        this.class_path_index_dir_path = class_path_index_dir_path;
+    }
+
+    public void setClass_path_slice(Boolean class_path_slice) {
+        this.class_path_slice = class_path_slice;
+    }
+
     public void setRuntime_trace_file_path(String runtime_trace_file_path) {
         this.runtime_trace_file_path = runtime_trace_file_path;
     }
 
+    public void setRuntime_trace_file_paths(List<String> runtime_trace_file_paths) {
+        this.runtime_trace_file_paths = runtime_trace_file_paths;
+    }
+
     public void setOutput_dir_path(String output_dir_path) {
         this.output_dir_path = output_dir_path;
     }
 
+    public void setOutput_format(String output_format) {
+        this.output_format = output_format;
+    }
+
+    public void setOutput_compression(String output_compression) {
+        this.output_compression = output_compression;
+    }
+
+    public void setOutput_scope(String output_scope) {
+        this.output_scope = output_scope;
+    }
+
+    public void setChop_max_depth(Integer chop_max_depth) {
+        this.chop_max_depth = chop_max_depth;
+    }
+
+    public void setChop_max_fan_out(Integer chop_max_fan_out) {
+        this.chop_max_fan_out = chop_max_fan_out;
+    }
+
+    public void setReachability_index(Boolean reachability_index) {
+        this.reachability_index = reachability_index;
+    }
+
+    public void setProfile_report(Boolean profile_report) {
+        this.profile_report = profile_report;
+    }
+
     public void setCall_graph_algo(String call_graph_algo) {
         this.call_graph_algo = call_graph_algo;
     }
 
+    public void setCall_graph_max_seconds(Integer call_graph_max_seconds) {
+        this.call_graph_max_seconds = call_graph_max_seconds;
+    }
+
+    public void setCall_graph_max_heap_percent(Integer call_graph_max_heap_percent) {
+        this.call_graph_max_heap_percent = call_graph_max_heap_percent;
+    }
+
+    public void setCall_graph_max_methods(Integer call_graph_max_methods) {
+        this.call_graph_max_methods = call_graph_max_methods;
+    }
+
+    public void setCall_graph_checkpoint_seconds(Integer call_graph_checkpoint_seconds) {
+        this.call_graph_checkpoint_seconds = call_graph_checkpoint_seconds;
+    }
+
+    public void setPoints_to_pattern(String points_to_pattern) {
+        this.points_to_pattern = points_to_pattern;
+    }
+
+    public void setPoints_to_jre_path(String points_to_jre_path) {
+        this.points_to_jre_path = points_to_jre_path;
+    }
+
+    public void setBody_interceptor_profile(String body_interceptor_profile) {
+        this.body_interceptor_profile = body_interceptor_profile;
+    }
+
+    public void setBody_prewarm(String body_prewarm) {
+        this.body_prewarm = body_prewarm;
+    }
+
     public void setMain_method_sig(String main_method_sig) {
         this.main_method_sig = main_method_sig;
     }
@@ -247,10 +715,26 @@ public class Config {
         this.entry_point_method_sig = entry_point_method_sig;
     }
 
+    public void setEntry_points(List<Map<String, String>> entry_points) {
+        this.entry_points = entry_points;
+    }
+
     public void setSink_method_sig(String sink_method_sig) {
         this.sink_method_sig = sink_method_sig;
     }
 
+    public void setSinks(List<Map<String, String>> sinks) {
+        this.sinks = sinks;
+    }
+
+    public void setSink_prescan(Boolean sink_prescan) {
+        this.sink_prescan = sink_prescan;
+    }
+
+    public void setTrace_extension(Boolean trace_extension) {
+        this.trace_extension = trace_extension;
+    }
+
     public void setFilter_default_policy(String filter_default_policy) {
         this.filter_default_policy = filter_default_policy;
     }
@@ -258,6 +742,10 @@ public class Config {
     public void setFilter(List<Map<String, String>> filter) {
         this.filter = filter;
     }
+
+    public void setPath_queries(List<Map<String, String>> path_queries) {
+        this.path_queries = path_queries;
+    }
     
     // For yaml
 
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.snc.secres.tool.passive;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+import sootup.core.model.SootClass;
+import sootup.core.model.SootMethod;
+import sootup.core.signatures.MethodSignature;
+import sootup.core.signatures.MethodSubSignature;
+import sootup.core.types.ClassType;
+import sootup.core.views.View;
+
+/*
+ * Describes entry point methods in terms of the type hierarchy, such as the doGet and doPost methods 
+ * of every HttpServlet. An entry point is a concrete method of a concrete subtype of the given
+ * type whose class name and method name match the given patterns, either declared by the subtype or
+ * inherited from one of its superclasses that is itself a subtype of the given type. Methods declared by
+ * the given type or above it (i.e. the stub doGet of HttpServlet) are never entry points, nor are 
+ * constructors and static initializers.
+ */
+public class EntryPointPattern {
+
+    private final ClassType subtypeOf;
+    private final Pattern classPattern;
+    private final Pattern methodPattern;
+
+    public EntryPointPattern(ClassType subtypeOf, Pattern classPattern, Pattern methodPattern) {
+        this.subtypeOf = Objects.requireNonNull(subtypeOf);
+        this.classPattern = Objects.requireNonNull(classPattern);
+        this.methodPattern = Objects.requireNonNull(methodPattern);
+    }
+
+    public ClassType getSubtypeOf() {
+        return subtypeOf;
+    }
+
+    public Pattern getClassPattern() {
+        return classPattern;
+    }
+
+    public Pattern getMethodPattern() {
+        return methodPattern;
+    }
+
+    public List<MethodSignature> findEntryPoints(View view) {
+        Set<MethodSignature> ret = new LinkedHashSet<>();
+        Set<ClassType> subtypes = view.getTypeHierarchy().subtypesOf(subtypeOf).collect(Collectors.toCollection(LinkedHashSet::new));
+        subtypes.forEach(type -> {
+            if(!classPattern.matcher(type.getFullyQualifiedName()).matches())
+                return;
+            SootClass clazz = view.getClass(type).orElse(null);
+            if(clazz == null || clazz.isInterface() || clazz.isAbstract())
+                return;
+            /* Walk up the superclass chain so inherited methods are matched as well, stopping at the first
+             * class that is not a subtype. The first declaration of a sub-signature seen is the one that 
+             * overrides all others above it. */
+            Set<MethodSubSignature> seen = new HashSet<>();
+            for(SootClass cur = clazz; cur != null && subtypes.contains(cur.getType()); 
+                    cur = cur.getSuperclass().flatMap(view::getClass).orElse(null)) {
+                for(SootMethod method : cur.getMethods()) {
+                    String name = method.getName();
+                    if(name.equals("<init>") || name.equals("<clinit>"))
+                        continue;
+                    if(cur != clazz && (method.isPrivate() || method.isStatic()))
+                        continue;
+                    if(!seen.add(method.getSignature().getSubSignature()))
+                        continue;
+                    if(method.isConcrete() && methodPattern.matcher(name).matches())
+                        ret.add(method.getSignature());
+                }
+            }
+        });
+        return new ArrayList<>(ret);
+    }
+
+    @Override
+    public String toString() {
+        return "EntryPointPattern [subtypeOf=" + subtypeOf + ", classPattern=" + classPattern + ", methodPattern=" + methodPattern + "]";
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + subtypeOf.hashCode();
+        result = prime * result + classPattern.pattern().hashCode();
+        result = prime * result + methodPattern.pattern().hashCode();
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        EntryPointPattern other = (EntryPointPattern) obj;
+        return subtypeOf.equals(other.subtypeOf) && classPattern.pattern().equals(other.classPattern.pattern()) 
+                && methodPattern.pattern().equals(other.methodPattern.pattern());
+    }
+
+    /*
+     * Each entry requires a 'subtype_of' class name and optionally takes a 'class_pattern' regex matched 
+     * against the fully qualified name of each subtype and a 'method_pattern' regex matched against the 
+     * name of each method, both of which default to matching everything.
+     */
+    public static List<EntryPointPattern> makeEntryPointPatterns(List<Map<String,String>> entries, View view) {
+        List<EntryPointPattern> ret = new ArrayList<>();
+        if(entries == null)
+            return ret;
+        for(Map<String,String> entry : entries) {
+            Map<String,String> normalized = new HashMap<>();
+            ((Map<?,?>)entry).forEach((k, v) -> normalized.put(String.valueOf(k).trim().toLowerCase(), v == null ? null : String.valueOf(v).trim()));
+
+            String subtypeOf = normalized.get("subtype_of");
+            if(subtypeOf == null || subtypeOf.isEmpty())
+                throw new IllegalArgumentException("Error: Entry point entry " + entry + " is missing a 'subtype_of' class name.");
+            String classRegex = normalized.get("class_pattern");
+            String methodRegex = normalized.get("method_pattern");
+            Pattern classPattern;
+            Pattern methodPattern;
+            try {
+                classPattern = Pattern.compile(classRegex == null || classRegex.isEmpty() ? ".*" : classRegex);
+                methodPattern = Pattern.compile(methodRegex == null || methodRegex.isEmpty() ? ".*" : methodRegex);
+            } catch(PatternSyntaxException e) {
+                throw new IllegalArgumentException("Error: Entry point entry " + entry + " has an invalid pattern.", e);
+            }
+            ret.add(new EntryPointPattern(view.getIdentifierFactory().getClassType(subtypeOf), classPattern, methodPattern));
+        }
+        return ret;
+    }
+
+    /* The entry points matched by any of the patterns in a stable order. */
+    public static List<MethodSignature> findEntryPoints(View view, List<EntryPointPattern> patterns) {
+        Set<MethodSignature> ret = new TreeSet<>(Comparator.comparing(MethodSignature::toString));
+        for(EntryPointPattern pattern : patterns) {
+            ret.addAll(pattern.findEntryPoints(view));
+        }
+        return new ArrayList<>(ret);
+    }
+
+}
@@ -24,22 +24,45 @@ package com.snc.secres.tool.passive;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.snc.secres.tool.common.io.FileHelpers;
+import com.snc.secres.tool.passive.index.CallSiteScan;
 
 public class Main {
 
-    private static final String HELPMSG = "Usage: Main [-h|--help] [-c <config file path>]\n" +
+    private static final String HELPMSG = "Usage: Main [-h|--help] [-c <config file path>] [-k <max paths>] [-q <target method signature>]...\n" +
+                                          "            [-r] [-s <port>]\n" +
                                           "  -c <config file path>       The path to the yaml config file used to configure sootup.\n" +
+                                          "  -k <max paths>              The number of shortest paths found for each -q query (default 1).\n" +
+                                          "  -q <target method signature>\n" +
+                                          "                              Find the shortest paths from the entry point to the method. May be\n" +
+                                          "                              given more than once. Added to the path_queries of the config file.\n" +
+                                          "  -r                          Resume the call graph construction from the checkpoint in the output\n" +
+                                          "                              directory (see call_graph_checkpoint_seconds) if there is one.\n" +
+                                          "  -s <port>                   Keep the call graph in memory and serve splice and query requests on\n" +
+                                          "                              127.0.0.1 at the port (0 picks a free port) instead of splicing the\n" +
+                                          "                              runtime traces of the config file once.\n" +
                                           "  -h, --help                  Show this help message and exit.\n";
     private static final String CN = Main.class.getSimpleName();
 
     private volatile Config config;
     private volatile Analysis analysis;
+    private final List<String> queryTargets;
+    private String queryMaxPaths;
+    private Integer serverPort;
+    private boolean resume;
 
     public Main() {
         this.config = null;
         this.analysis = null;
+        this.queryTargets = new ArrayList<>();
+        this.queryMaxPaths = "1";
+        this.serverPort = null;
+        this.resume = false;
     }
 
     public int parseArgs(String[] args) {
@@ -72,6 +95,27 @@ public class Main {
                         return 0;
                     }
                     break;
+                case "-q":
+                    queryTargets.add(args[++i]);
+                    break;
+                case "-k":
+                    queryMaxPaths = args[++i];
+                    break;
+                case "-r":
+                    resume = true;
+                    break;
+                case "-s":
+                    String port = args[++i];
+                    try {
+                        serverPort = Integer.parseInt(port);
+                    } catch(NumberFormatException e) {
+                        serverPort = -1;
+                    }
+                    if(serverPort < 0 || serverPort > 65535) {
+                        System.err.println(CN + ": Invalid server port " + port + ".\n\n" + HELPMSG);
+                        return 0;
+                    }
+                    break;
                 default:
                     System.err.println(CN + ": Unknown argument " + args[i] + ".\n\n" + HELPMSG);
                     return 0;
@@ -86,6 +130,17 @@ public class Main {
             return false;
         }
 
+        if(!queryTargets.isEmpty()) {
+            List<Map<String,String>> pathQueries = new ArrayList<>(config.getPathQueryEntries());
+            for(String target : queryTargets) {
+                Map<String,String> entry = new HashMap<>();
+                entry.put("target", target);
+                entry.put("max_paths", queryMaxPaths);
+                pathQueries.add(entry);
+            }
+            config.setPath_queries(pathQueries);
+        }
+
         Path outDir = config.getOutputDirPath();
         try {
             FileHelpers.processDirectory(outDir, true, false);
@@ -95,7 +150,20 @@ public class Main {
             return false;
         }
 
-        this.analysis = Analysis.makeAnalysis(config);
+        // Nothing calls the sinks so there is nothing to splice the runtime traces into
+        CallSiteScan sinkPrescan = null;
+        if(config.getSinkPrescan()) {
+            sinkPrescan = Analysis.prescanSinks(config);
+            if(sinkPrescan == null)
+                return false;
+            if(sinkPrescan.getCallSites().isEmpty() && serverPort == null) {
+                System.out.println(CN + ": No method on the class path calls a sink. Skipping the analysis.");
+                return true;
+            }
+        }
+
+        // The runtime traces are given through splice requests when running as a server
+        this.analysis = Analysis.makeAnalysis(config, serverPort == null, resume, sinkPrescan);
         if(this.analysis == null) {
             return false;
         }
@@ -111,7 +179,13 @@ public class Main {
             success = main.parseArgs(args);
             if (success == 1) {
                 if(main.initAnalysis()) {
-                    main.analysis.run();
+                    // There is no analysis when the sink prescan finds nothing to analyze
+                    if(main.analysis != null) {
+                        if(main.serverPort == null)
+                            main.analysis.run();
+                        else
+                            new Server(main.analysis, main.serverPort).run();
+                    }
                 } else {
                     success = 0;
                 }
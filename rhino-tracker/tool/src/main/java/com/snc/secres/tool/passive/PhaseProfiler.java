@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.snc.secres.tool.passive;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.snc.secres.tool.common.io.JsonHelpers;
+
+import sootup.core.transform.TimedBodyInterceptor;
+
+/*
+ * Records the wall time, allocated bytes, and heap usage of each phase of an analysis along with any 
+ * statistics about the call graph. Allocated bytes are counted for the thread that ends the phase or, 
+ * if allThreads is true, for every live thread which includes any pool threads used by the phase. The 
+ * counts are kept per thread so a thread started during the phase counts from zero. The JVM forgets the
+ * count of a thread once it exits, so if a thread alive at the start of a phase exits before its end, 
+ * or a phase ends on another thread than it began on, the allocated bytes are marked as approximate. The
+ * heap after GC is what the collector left after its most recent collection, so no collection is forced.
+ * A profiler is not thread safe and phases cannot be nested.
+ */
+public class PhaseProfiler {
+
+    public static final String FILE_EXT = ".profile.json";
+
+    private final String name;
+    private final boolean allThreads;
+    private final List<Phase> phases;
+    private final Map<String,Long> stats;
+    private String curName;
+    private long curStart;
+    private Map<Long,Long> curAllocated;
+
+    public PhaseProfiler(String name, boolean allThreads) {
+        this.name = name;
+        this.allThreads = allThreads;
+        this.phases = new ArrayList<>();
+        this.stats = new LinkedHashMap<>();
+        this.curName = null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Phase> getPhases() {
+        return Collections.unmodifiableList(phases);
+    }
+
+    public Map<String,Long> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    public void begin(String phase) {
+        if(curName != null)
+            throw new IllegalStateException("Phase '" + curName + "' has not ended before the start of phase '" + phase + "'.");
+        curName = phase;
+        curAllocated = getAllocatedBytes();
+        curStart = System.nanoTime();
+    }
+
+    public void end() {
+        long nanos = System.nanoTime() - curStart;
+        if(curName == null)
+            throw new IllegalStateException("No phase has begun.");
+        Map<Long,Long> allocated = getAllocatedBytes();
+        long allocatedBytes = -1;
+        boolean approximate = false;
+        if(allocated != null && curAllocated != null) {
+            allocatedBytes = 0;
+            for(Map.Entry<Long,Long> e : allocated.entrySet()) {
+                Long start = curAllocated.get(e.getKey());
+                if(start == null && !allThreads)
+                    approximate = true;
+                allocatedBytes += Math.max(0, e.getValue() - (start == null ? 0 : start));
+            }
+            if(!allocated.keySet().containsAll(curAllocated.keySet()))
+                approximate = true;
+        }
+        phases.add(new Phase(curName, nanos, allocatedBytes, approximate, getHeapUsed(false), getHeapUsed(true)));
+        curName = null;
+        curAllocated = null;
+    }
+
+    public void addStat(String stat, long value) {
+        stats.put(stat, value);
+    }
+
+    /* Returns the bytes allocated so far by each counted thread by thread id or null if the JVM cannot measure them. */
+    private Map<Long,Long> getAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if(!(threads instanceof com.sun.management.ThreadMXBean))
+            return null;
+        com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean)threads;
+        if(!sunThreads.isThreadAllocatedMemorySupported() || !sunThreads.isThreadAllocatedMemoryEnabled())
+            return null;
+        long[] ids = allThreads ? sunThreads.getAllThreadIds() : new long[] {Thread.currentThread().getId()};
+        long[] bytes = sunThreads.getThreadAllocatedBytes(ids);
+        Map<Long,Long> ret = new HashMap<>();
+        for(int i = 0; i < ids.length; i++) {
+            // A thread that exited since its id was read has no count
+            if(bytes[i] >= 0)
+                ret.put(ids[i], bytes[i]);
+        }
+        return ret;
+    }
+
+    private static long getHeapUsed(boolean afterGc) {
+        long ret = 0;
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if(pool.getType() != MemoryType.HEAP || !pool.isValid())
+                continue;
+            MemoryUsage usage = afterGc ? pool.getCollectionUsage() : pool.getUsage();
+            if(usage != null)
+                ret += usage.getUsed();
+        }
+        return ret;
+    }
+
+    /*
+     * Writes a JSON report of the phases and statistics of the given profilers in order, followed by the
+     * timings of the body interceptors.
+     */
+    public static void writeReport(Path file, String name, List<PhaseProfiler> profilers, List<TimedBodyInterceptor> bodyInterceptors) 
+            throws IOException {
+        try(Writer out = Files.newBufferedWriter(file)) {
+            out.write(toJson(name, profilers, bodyInterceptors));
+        }
+    }
+
+    public static String toJson(String name, List<PhaseProfiler> profilers, List<TimedBodyInterceptor> bodyInterceptors) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"name\": ");
+        JsonHelpers.quote(sb, name).append(",\n  \"phases\": [");
+        boolean first = true;
+        for(PhaseProfiler profiler : profilers) {
+            for(Phase phase : profiler.phases) {
+                sb.append(first ? "\n    " : ",\n    ");
+                first = false;
+                sb.append("{\"group\": ");
+                JsonHelpers.quote(sb, profiler.name).append(", \"phase\": ");
+                JsonHelpers.quote(sb, phase.name).append(", \"wall_ms\": ").append(TimeUnit.NANOSECONDS.toMillis(phase.nanos))
+                    .append(", \"allocated_bytes\": ").append(phase.allocatedBytes).append(", \"allocated_approximate\": ")
+                    .append(phase.allocatedApproximate).append(", \"heap_used_bytes\": ")
+                    .append(phase.heapUsedBytes).append(", \"heap_after_gc_bytes\": ").append(phase.heapAfterGcBytes).append("}");
+            }
+        }
+        sb.append(first ? "],\n  \"stats\": {" : "\n  ],\n  \"stats\": {");
+        first = true;
+        for(PhaseProfiler profiler : profilers) {
+            for(Map.Entry<String,Long> e : profiler.stats.entrySet()) {
+                sb.append(first ? "\n    " : ",\n    ");
+                first = false;
+                JsonHelpers.quote(sb, e.getKey()).append(": ").append(e.getValue());
+            }
+        }
+        sb.append(first ? "},\n  \"body_interceptors\": [" : "\n  },\n  \"body_interceptors\": [");
+        first = true;
+        for(TimedBodyInterceptor bodyInterceptor : bodyInterceptors) {
+            sb.append(first ? "\n    " : ",\n    ");
+            first = false;
+            sb.append("{\"name\": ");
+            JsonHelpers.quote(sb, bodyInterceptor.getInterceptor().getClass().getSimpleName()).append(", \"bodies\": ")
+                .append(bodyInterceptor.getInvocations()).append(", \"wall_ms\": ")
+                .append(TimeUnit.NANOSECONDS.toMillis(bodyInterceptor.getTotalNanos())).append("}");
+        }
+        sb.append(first ? "]\n}\n" : "\n  ]\n}\n");
+        return sb.toString();
+    }
+
+    public static final class Phase {
+        private final String name;
+        private final long nanos;
+        private final long allocatedBytes;
+        private final boolean allocatedApproximate;
+        private final long heapUsedBytes;
+        private final long heapAfterGcBytes;
+
+        private Phase(String name, long nanos, long allocatedBytes, boolean allocatedApproximate, long heapUsedBytes, long heapAfterGcBytes) {
+            this.name = name;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+            this.allocatedApproximate = allocatedApproximate;
+            this.heapUsedBytes = heapUsedBytes;
+            this.heapAfterGcBytes = heapAfterGcBytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        /** The bytes allocated during the phase or -1 if the JVM cannot measure them. */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        /** True if a thread counted at the start of the phase exited before its end or the phase ended on another thread. */
+        public boolean isAllocatedApproximate() {
+            return allocatedApproximate;
+        }
+
+        public long getHeapUsedBytes() {
+            return heapUsedBytes;
+        }
+
+        public long getHeapAfterGcBytes() {
+            return heapAfterGcBytes;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms, " + (allocatedApproximate ? "about " : "") + allocatedBytes 
+                + " bytes allocated";
+        }
+    }
+
+}
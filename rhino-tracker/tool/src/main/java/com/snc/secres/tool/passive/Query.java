@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.snc.secres.tool.passive;
+
+import java.nio.file.Path;
+import java.util.BitSet;
+
+import com.snc.secres.tool.common.io.FileHelpers;
+import com.snc.secres.tool.passive.graph.CompactCallGraph;
+import com.snc.secres.tool.passive.graph.ReachabilityIndex;
+
+public class Query {
+
+    private static final String HELPMSG = "Usage: Query [-h|--help] [-g <graph file path>] [-r <index file path>] <command> [<signature>...]\n" +
+                                          "  -g <graph file path>        The path to a call graph written with the binary output format.\n" +
+                                          "  -r <index file path>        The path to a reachability index written alongside the call graph.\n" +
+                                          "  -h, --help                  Show this help message and exit.\n" +
+                                          "Commands:\n" +
+                                          "  info                        Show the number of methods and calls in the call graph.\n" +
+                                          "  callees <signature>         Show the methods directly called by a method.\n" +
+                                          "  callers <signature>         Show the methods directly calling a method.\n" +
+                                          "  reachable <signature>       Show all methods transitively called by a method.\n" +
+                                          "  path <from> <to>            Show a shortest call path between two methods if one exists.\n" +
+                                          "  reaches <from> <to>         Show whether a method can reach another. Uses the reachability\n" +
+                                          "                              index if given and otherwise searches the call graph.\n";
+    private static final String CN = Query.class.getSimpleName();
+
+    private Path graphFile;
+    private Path indexFile;
+    private String command;
+    private String[] signatures;
+
+    public Query() {
+        this.graphFile = null;
+        this.indexFile = null;
+        this.command = null;
+        this.signatures = null;
+    }
+
+    public int parseArgs(String[] args) {
+        if(args == null || args.length == 0) {
+            System.err.println(CN + ": No arguments.\n\n" + HELPMSG);
+            return 0;
+        }
+
+        int i = 0;
+        for(; i < args.length && command == null; i++) {
+            switch(args[i]) {
+                case "-h":
+                case "--help":
+                    System.out.println(CN + ": Help message requested.\n\n" + HELPMSG);
+                    return 2;
+                case "-g":
+                    if(i + 1 >= args.length) {
+                        System.err.println(CN + ": Missing graph file path.\n\n" + HELPMSG);
+                        return 0;
+                    }
+                    graphFile = FileHelpers.getPath(args[++i]);
+                    if(!FileHelpers.checkRWFileExists(graphFile)) {
+                        System.err.println(CN + ": Non-readable graph file " + graphFile + ".");
+                        return 0;
+                    }
+                    break;
+                case "-r":
+                    if(i + 1 >= args.length) {
+                        System.err.println(CN + ": Missing index file path.\n\n" + HELPMSG);
+                        return 0;
+                    }
+                    indexFile = FileHelpers.getPath(args[++i]);
+                    if(!FileHelpers.checkRWFileExists(indexFile)) {
+                        System.err.println(CN + ": Non-readable index file " + indexFile + ".");
+                        return 0;
+                    }
+                    break;
+                default:
+                    command = args[i];
+            }
+        }
+
+        if(command == null) {
+            System.err.println(CN + ": A command must be provided.\n\n" + HELPMSG);
+            return 0;
+        }
+        if(graphFile == null && !(command.equals("reaches") && indexFile != null)) {
+            System.err.println(CN + ": A graph file must be provided.\n\n" + HELPMSG);
+            return 0;
+        }
+
+        int expected;
+        switch(command) {
+            case "info":
+                expected = 0;
+                break;
+            case "callees":
+            case "callers":
+            case "reachable":
+                expected = 1;
+                break;
+            case "path":
+            case "reaches":
+                expected = 2;
+                break;
+            default:
+                System.err.println(CN + ": Unknown command " + command + ".\n\n" + HELPMSG);
+                return 0;
+        }
+        if(args.length - i != expected) {
+            System.err.println(CN + ": The command " + command + " expects " + expected + " signature(s).\n\n" + HELPMSG);
+            return 0;
+        }
+        signatures = new String[expected];
+        System.arraycopy(args, i, signatures, 0, expected);
+        return 1;
+    }
+
+    public boolean run() {
+        if(command.equals("reaches") && indexFile != null)
+            return runReaches();
+        long start = System.nanoTime();
+        try(CompactCallGraph cg = CompactCallGraph.open(graphFile)) {
+            int[] ids = new int[signatures.length];
+            for(int i = 0; i < signatures.length; i++) {
+                ids[i] = cg.getId(signatures[i]);
+                if(ids[i] < 0) {
+                    System.err.println(CN + ": No method with signature " + signatures[i] + " in the call graph.");
+                    return false;
+                }
+            }
+            switch(command) {
+                case "info":
+                    System.out.println("Methods: " + cg.getNodeCount());
+                    System.out.println("Calls: " + cg.getEdgeCount());
+                    break;
+                case "callees":
+                    print(cg, cg.getCallees(ids[0]));
+                    break;
+                case "callers":
+                    print(cg, cg.getCallers(ids[0]));
+                    break;
+                case "reachable":
+                    BitSet reachable = cg.getReachable(ids[0]);
+                    print(cg, reachable.stream().toArray());
+                    break;
+                case "path":
+                    int[] path = cg.getPath(ids[0], ids[1]);
+                    if(path == null)
+                        System.out.println("No path from " + signatures[0] + " to " + signatures[1] + ".");
+                    else
+                        print(cg, path);
+                    break;
+                case "reaches":
+                    System.out.println(ids[0] == ids[1] || cg.getPath(ids[0], ids[1]) != null);
+                    break;
+            }
+        } catch(Exception e) {
+            System.err.println(CN + ": Failed to query the graph file " + graphFile + ".\n\n");
+            e.printStackTrace();
+            return false;
+        }
+        System.err.println(CN + ": Answered in " + ((System.nanoTime() - start) / 1000000) + " ms.");
+        return true;
+    }
+
+    private boolean runReaches() {
+        long start = System.nanoTime();
+        try(ReachabilityIndex index = ReachabilityIndex.open(indexFile)) {
+            for(String signature : signatures) {
+                if(index.getId(signature) < 0) {
+                    System.err.println(CN + ": No method with signature " + signature + " in the reachability index.");
+                    return false;
+                }
+            }
+            System.out.println(index.reaches(signatures[0], signatures[1]));
+        } catch(Exception e) {
+            System.err.println(CN + ": Failed to query the index file " + indexFile + ".\n\n");
+            e.printStackTrace();
+            return false;
+        }
+        System.err.println(CN + ": Answered in " + ((System.nanoTime() - start) / 1000000) + " ms.");
+        return true;
+    }
+
+    private static void print(CompactCallGraph cg, int[] ids) {
+        StringBuilder sb = new StringBuilder();
+        for(int id : ids) {
+            sb.append(cg.getSignature(id)).append('\n');
+        }
+        System.out.print(sb);
+    }
+
+    public static void main(String[] args) {
+        int success = 0;
+        try {
+            Query query = new Query();
+            success = query.parseArgs(args);
+            if(success == 1 && !query.run())
+                success = 0;
+        } catch(Throwable t) {
+            success = 0;
+            System.err.println(CN + ": Unexpected exception.\n\n");
+            t.printStackTrace();
+        } finally {
+            if(success == 1 || success == 2)
+                System.exit(0);
+            else
+                System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.snc.secres.tool.passive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import sootup.core.IdentifierFactory;
+import sootup.core.signatures.MethodSignature;
+import sootup.core.types.ClassType;
+import sootup.core.types.Type;
+
+/*
+ * Reads the method signatures of runtime trace files. A trace is streamed and its lines are 
+ * deduplicated as raw bytes before anything is decoded, so memory is bounded by the number of distinct
+ * lines rather than the length of the trace. The distinct lines are then parsed in parallel. Class 
+ * and other types are cached across every signature and trace read by the same reader. Signatures 
+ * are returned in the order they first appear in the trace.
+ */
+public class RuntimeTraceReader {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int PARALLEL_THRESHOLD = 512;
+
+    private final IdentifierFactory identifierFactory;
+    private final ConcurrentHashMap<String,ClassType> classTypes;
+    private final ConcurrentHashMap<String,Type> types;
+
+    public RuntimeTraceReader(IdentifierFactory identifierFactory) {
+        this.identifierFactory = identifierFactory;
+        this.classTypes = new ConcurrentHashMap<>();
+        this.types = new ConcurrentHashMap<>();
+    }
+
+    public Set<MethodSignature> read(Path file) throws IOException {
+        List<String> lines;
+        try(InputStream in = Files.newInputStream(file)) {
+            lines = readDistinctLines(in);
+        }
+        MethodSignature[] sigs = new MethodSignature[lines.size()];
+        IntStream indexes = IntStream.range(0, sigs.length);
+        (sigs.length >= PARALLEL_THRESHOLD ? indexes.parallel() : indexes).forEach(i -> sigs[i] = parseMethodSignature(lines.get(i)));
+        // Lines that differ only in spacing may still be the same signature
+        return new LinkedHashSet<>(Arrays.asList(sigs));
+    }
+
+    /*
+     * Parses a signature in the Soot format without the regular expressions of the identifier factory,
+     * resolving each type through the caches. Anything out of the ordinary is handed to the identifier 
+     * factory which also produces the error for malformed signatures.
+     */
+    public MethodSignature parseMethodSignature(String sig) {
+        int len = sig.length();
+        int colon = sig.indexOf(':');
+        int open = colon < 0 ? -1 : sig.indexOf('(', colon);
+        if(len < 2 || sig.charAt(0) != '<' || sig.charAt(len - 1) != '>' || colon < 0 || open < 0 || sig.indexOf(')', open) != len - 2)
+            return identifierFactory.parseMethodSignature(sig);
+
+        String className = sig.substring(1, colon).trim();
+        String returnAndName = sig.substring(colon + 1, open).trim();
+        int space = 0;
+        while(space < returnAndName.length() && !Character.isWhitespace(returnAndName.charAt(space)))
+            space++;
+        String returnName = returnAndName.substring(0, space);
+        String methodName = returnAndName.substring(space).trim();
+        if(className.isEmpty() || returnName.isEmpty() || methodName.isEmpty())
+            return identifierFactory.parseMethodSignature(sig);
+
+        List<Type> paramTypes;
+        String args = sig.substring(open + 1, len - 2);
+        if(args.isEmpty()) {
+            paramTypes = Collections.emptyList();
+        } else {
+            paramTypes = new ArrayList<>();
+            int start = 0;
+            while(start <= args.length()) {
+                int end = args.indexOf(',', start);
+                if(end < 0)
+                    end = args.length();
+                String arg = args.substring(start, end).trim();
+                if(arg.isEmpty())
+                    return identifierFactory.parseMethodSignature(sig);
+                paramTypes.add(getType(arg));
+                start = end + 1;
+            }
+        }
+        return identifierFactory.getMethodSignature(getClassType(className), methodName, getType(returnName), paramTypes);
+    }
+
+    private ClassType getClassType(String className) {
+        ClassType ret = classTypes.get(className);
+        return ret != null ? ret : classTypes.computeIfAbsent(className, identifierFactory::getClassType);
+    }
+
+    private Type getType(String typeName) {
+        Type ret = types.get(typeName);
+        return ret != null ? ret : types.computeIfAbsent(typeName, identifierFactory::getType);
+    }
+
+    /*
+     * Returns the distinct non-empty lines of the stream in the order they first appear with any leading
+     * and trailing whitespace removed. Both '\n' and '\r' end a line.
+     */
+    public static List<String> readDistinctLines(InputStream in) throws IOException {
+        Set<Line> seen = new HashSet<>();
+        List<String> ret = new ArrayList<>();
+        byte[] buf = new byte[BUFFER_SIZE];
+        byte[] line = new byte[256];
+        int lineLen = 0;
+        int read;
+        while((read = in.read(buf)) >= 0) {
+            for(int i = 0; i < read; i++) {
+                byte b = buf[i];
+                if(b == '\n' || b == '\r') {
+                    addLine(line, lineLen, seen, ret);
+                    lineLen = 0;
+                } else {
+                    if(lineLen == line.length)
+                        line = Arrays.copyOf(line, line.length * 2);
+                    line[lineLen++] = b;
+                }
+            }
+        }
+        addLine(line, lineLen, seen, ret);
+        return ret;
+    }
+
+    private static void addLine(byte[] line, int len, Set<Line> seen, List<String> lines) {
+        // The same whitespace as String.trim and no byte of a multi-byte UTF-8 character is in this range
+        int start = 0;
+        while(start < len && (line[start] & 0xff) <= ' ')
+            start++;
+        while(len > start && (line[len - 1] & 0xff) <= ' ')
+            len--;
+        if(start == len)
+            return;
+        // Only copy the bytes of lines not seen before
+        if(!seen.contains(new Line(line, start, len))) {
+            seen.add(new Line(Arrays.copyOfRange(line, start, len), 0, len - start));
+            lines.add(new String(line, start, len - start, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static final class Line {
+        private final byte[] bytes;
+        private final int from;
+        private final int to;
+        private final int hash;
+
+        private Line(byte[] bytes, int from, int to) {
+            this.bytes = bytes;
+            this.from = from;
+            this.to = to;
+            int hash = 1;
+            for(int i = from; i < to; i++)
+                hash = 31 * hash + bytes[i];
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Line))
+                return false;
+            Line other = (Line) obj;
+            return hash == other.hash && Arrays.equals(bytes, from, to, other.bytes, other.from, other.to);
+        }
+    }
+
+}
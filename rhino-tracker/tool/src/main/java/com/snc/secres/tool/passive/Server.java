@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.snc.secres.tool.passive;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import com.snc.secres.tool.common.io.FileHelpers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * Serves an analysis over HTTP on the loopback address so the class path is loaded and the call graph 
+ * is built once for any number of runtime traces. Requests are handled one at a time in the order 
+ * received. All responses are plain text.
+ *
+ * A random token is generated on startup and printed. Every request must carry it in the header 
+ * 'Authorization: Bearer <token>'. Since a web page the user visits can also reach the loopback address,
+ * requests whose Host or Origin is not a loopback address are rejected as well, which also stops DNS 
+ * rebinding.
+ *
+ *   POST /splice     The body lists runtime trace files or directories, one per line. Each trace is 
+ *                    spliced and written just as in a normal run. Returns the written files.
+ *   GET  /paths      Takes the parameters target, source, and max_paths of a path_queries entry. 
+ *                    Returns the shortest paths in the call graph without any trace spliced in.
+ *   GET  /reaches    Takes the parameters from and to. Returns whether from can reach to.
+ *   GET  /info       Returns the number of methods and calls in the call graph.
+ *   POST /shutdown   Stops the server.
+ */
+public class Server {
+
+    private static final String CN = Server.class.getSimpleName();
+
+    private final Analysis analysis;
+    private final HttpServer httpServer;
+    private final CountDownLatch stopped;
+    private final String token;
+
+    public Server(Analysis analysis, int port) throws IOException {
+        this.analysis = analysis;
+        this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.stopped = new CountDownLatch(1);
+        byte[] tokenBytes = new byte[32];
+        new SecureRandom().nextBytes(tokenBytes);
+        this.token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+        httpServer.createContext("/splice", exchange -> handle(exchange, "POST", this::splice));
+        httpServer.createContext("/paths", exchange -> handle(exchange, "GET", this::paths));
+        httpServer.createContext("/reaches", exchange -> handle(exchange, "GET", this::reaches));
+        httpServer.createContext("/info", exchange -> handle(exchange, "GET", this::info));
+        httpServer.createContext("/shutdown", exchange -> handle(exchange, "POST", this::shutdown));
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /* Serves requests until a shutdown request is received. */
+    public void run() throws InterruptedException {
+        httpServer.start();
+        System.out.println(CN + ": Listening on http://" + httpServer.getAddress().getHostString() + ":" + getPort() + "/.");
+        System.out.println(CN + ": Token: " + token);
+        stopped.await();
+        // Give the response to the shutdown request a chance to be sent
+        httpServer.stop(1);
+        System.out.println(CN + ": Stopped.");
+    }
+
+    private String splice(HttpExchange exchange) throws Exception {
+        List<Path> paths = new ArrayList<>();
+        try(BufferedReader in = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            String line;
+            while((line = in.readLine()) != null) {
+                line = line.trim();
+                if(!line.isEmpty())
+                    paths.add(FileHelpers.getPath(line));
+            }
+        }
+        if(paths.isEmpty())
+            throw new IllegalArgumentException("No runtime trace files given.");
+        StringBuilder sb = new StringBuilder();
+        for(Path path : analysis.splice(paths)) {
+            sb.append(path).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private String paths(HttpExchange exchange) throws Exception {
+        StringWriter out = new StringWriter();
+        analysis.writePathQueries(out, Collections.singletonList(getParameters(exchange)));
+        return out.toString();
+    }
+
+    private String reaches(HttpExchange exchange) throws Exception {
+        Map<String,String> params = getParameters(exchange);
+        String from = params.get("from");
+        String to = params.get("to");
+        if(from == null || to == null)
+            throw new IllegalArgumentException("Both the 'from' and 'to' method signatures must be given.");
+        return analysis.reaches(from, to) + "\n";
+    }
+
+    private String info(HttpExchange exchange) {
+        return "Methods: " + analysis.getMethodCount() + "\nCalls: " + analysis.getCallCount() + "\n";
+    }
+
+    private String shutdown(HttpExchange exchange) {
+        stopped.countDown();
+        return "Stopping.\n";
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        int status;
+        String body;
+        try {
+            if(!isLoopback(exchange.getRequestHeaders().getFirst("Host"), false) 
+                    || !isLoopback(exchange.getRequestHeaders().getFirst("Origin"), true)) {
+                body = "Only requests from the loopback address are served.\n";
+                status = 403;
+            } else if(!hasToken(exchange)) {
+                body = "Expected the header 'Authorization: Bearer <token>' with the token printed on startup.\n";
+                status = 401;
+            } else if(exchange.getRequestMethod().equalsIgnoreCase(method)) {
+                body = handler.handle(exchange);
+                status = 200;
+            } else {
+                body = "Expected a " + method + " request.\n";
+                status = 405;
+            }
+        } catch(IllegalArgumentException e) {
+            body = e.getMessage() + "\n";
+            status = 400;
+        } catch(Exception e) {
+            System.err.println(CN + ": Failed to handle the request '" + exchange.getRequestURI() + "'.\n\n");
+            e.printStackTrace();
+            body = e.getMessage() + "\n";
+            status = 500;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try(OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private boolean hasToken(HttpExchange exchange) {
+        String auth = exchange.getRequestHeaders().getFirst("Authorization");
+        if(auth == null || !auth.regionMatches(true, 0, "Bearer ", 0, 7))
+            return false;
+        // Compared in constant time so the token cannot be guessed from the response times
+        return MessageDigest.isEqual(auth.substring(7).trim().getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /* 
+     * A Host header is a host and optional port while an Origin header is a URI. A missing Origin is 
+     * fine since only browsers send one but a request without a Host header is rejected.
+     */
+    private static boolean isLoopback(String header, boolean isOrigin) {
+        if(header == null)
+            return isOrigin;
+        String host;
+        try {
+            host = URI.create(isOrigin ? header.trim() : "http://" + header.trim()).getHost();
+        } catch(IllegalArgumentException e) {
+            return false;
+        }
+        if(host == null)
+            return false;
+        host = host.toLowerCase(Locale.ROOT);
+        return host.equals("localhost") || host.equals("[::1]") || host.equals("::1") || host.equals("127.0.0.1");
+    }
+
+    private static Map<String,String> getParameters(HttpExchange exchange) {
+        Map<String,String> ret = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if(query == null)
+            return ret;
+        for(String param : query.split("&")) {
+            int i = param.indexOf('=');
+            if(i <= 0)
+                continue;
+            ret.put(URLDecoder.decode(param.substring(0, i), StandardCharsets.UTF_8).toLowerCase(), 
+                    URLDecoder.decode(param.substring(i + 1), StandardCharsets.UTF_8));
+        }
+        return ret;
+    }
+
+    private interface Handler {
+        String handle(HttpExchange exchange) throws Exception;
+    }
+
+}
@@ -22,17 +22,29 @@
 
 package com.snc.secres.tool.passive;
 
+import java.io.File;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import com.snc.secres.tool.passive.index.ClassPathIndex;
+import com.snc.secres.tool.passive.index.ClassPathSlice;
+
+import sootup.callgraph.filter.CallGraphFilter;
 import sootup.core.frontend.OverridingBodySource;
 import sootup.core.inputlocation.AnalysisInputLocation;
 import sootup.core.inputlocation.InMemoryJavaAnalysisInputLocation;
+import sootup.core.inputlocation.SlicedAnalysisInputLocation;
 import sootup.core.jimple.basic.NoPositionInformation;
 import sootup.core.model.Body;
 import sootup.core.model.ClassModifier;
@@ -40,12 +52,18 @@ import sootup.core.model.MethodModifier;
 import sootup.core.model.SourceType;
 import sootup.core.signatures.MethodSignature;
 import sootup.core.transform.BodyInterceptor;
+import sootup.core.transform.TimedBodyInterceptor;
+import sootup.core.typehierarchy.AuxViewTypeHierarchy;
+import sootup.core.types.ClassType;
 import sootup.core.types.VoidType;
+import sootup.core.views.View;
+import sootup.java.bytecode.frontend.AsmUtil;
 import sootup.java.bytecode.inputlocation.JavaClassPathAnalysisInputLocation;
 import sootup.java.core.JavaSootClass;
 import sootup.java.core.JavaSootMethod;
 import sootup.java.core.OverridingJavaClassSource;
 import sootup.java.core.interceptors.Aggregator;
+import sootup.java.core.interceptors.BytecodeBodyInterceptors;
 import sootup.java.core.interceptors.CastAndReturnInliner;
 import sootup.java.core.interceptors.ConstantPropagatorAndFolder;
 import sootup.java.core.interceptors.CopyPropagator;
@@ -56,41 +74,156 @@ import sootup.java.core.interceptors.NopEliminator;
 import sootup.java.core.interceptors.UnreachableCodeEliminator;
 import sootup.java.core.interceptors.UnusedLocalEliminator;
 import sootup.java.core.types.JavaClassType;
+import sootup.java.core.views.AuxMutableJavaView;
 import sootup.java.core.views.MutableJavaView;
 
 public class SootTools {
 
-    public static MutableJavaView makeJavaView(String classPath) {
-        // This list was constructed and organized by combining the original soot with sootup
-        //A default list can be found here but it might not contain everything BytecodeBodyInterceptors.Default.getBodyInterceptors()
-        List<BodyInterceptor> bodyInterceptors = Collections.unmodifiableList(Arrays.asList(
-                // new TrapTightener(), missing: impl not finished
-                // new DuplicateCatchAllTrapRemover(), missing: does not exist in sootup
-                new UnreachableCodeEliminator(),
-                // new LocalSplitter(), bug: causes infinite loop
-                // new SharedInitializationLocalSplitter(), missing: does not exist in sootup
-                new Aggregator(),
-                new EmptySwitchEliminator(), // new: sootup
-                new CastAndReturnInliner(), // new: sootup
-                new ConstantPropagatorAndFolder(), // new: sootup
-                new UnusedLocalEliminator(),
-                // new TypeAssigner(), bug: causes an exception because it leaves intermediary AugmentIntegerTypes
-                new LocalNameStandardizer(),
-                new CopyPropagator(),
-                // new DeadAssignmentEliminator(), bug: creates unconnected exceptional flows - see RuntimeJarConversionTests
-                // new ConditionalBranchFolder(), bug: leaves unconnected edges sometimes - see RuntimeJarConversionTests
-                new UnusedLocalEliminator(),
-                new LocalPacker(),
-                new NopEliminator(),
-                new UnreachableCodeEliminator(),
-                new LocalNameStandardizer())
-        );
+    public static final String PRECISE_BODY_INTERCEPTOR_PROFILE = "precise";
+    public static final String FAST_BODY_INTERCEPTOR_PROFILE = "fast";
+    public static final String TYPED_BODY_INTERCEPTOR_PROFILE = "typed";
+    public static final String NO_BODY_PREWARM = "none";
+    public static final String FILTER_BODY_PREWARM = "filter";
+    public static final String ALL_BODY_PREWARM = "all";
+
+    /*
+     * The precise profile produces the cleanest Jimple. The call graph algorithms only need the invoke 
+     * and allocation statements of a body which are already present in the Jimple produced from the 
+     * bytecode, so the fast profile only removes unreachable code to keep dead calls out of the graph.
+     */
+    public static List<BodyInterceptor> makeBodyInterceptors(String profile) {
+        switch(profile.toLowerCase()) {
+            case PRECISE_BODY_INTERCEPTOR_PROFILE:
+                // This list was constructed and organized by combining the original soot with sootup
+                //A default list can be found here but it might not contain everything BytecodeBodyInterceptors.Default.getBodyInterceptors()
+                return Collections.unmodifiableList(Arrays.asList(
+                        // new TrapTightener(), missing: impl not finished
+                        // new DuplicateCatchAllTrapRemover(), missing: does not exist in sootup
+                        new UnreachableCodeEliminator(),
+                        // new LocalSplitter(), bug: causes infinite loop
+                        // new SharedInitializationLocalSplitter(), missing: does not exist in sootup
+                        new Aggregator(),
+                        new EmptySwitchEliminator(), // new: sootup
+                        new CastAndReturnInliner(), // new: sootup
+                        new ConstantPropagatorAndFolder(), // new: sootup
+                        new UnusedLocalEliminator(),
+                        // new TypeAssigner(), bug: causes an exception because it leaves intermediary AugmentIntegerTypes
+                        new LocalNameStandardizer(),
+                        new CopyPropagator(),
+                        // new DeadAssignmentEliminator(), bug: creates unconnected exceptional flows - see RuntimeJarConversionTests
+                        // new ConditionalBranchFolder(), bug: leaves unconnected edges sometimes - see RuntimeJarConversionTests
+                        new UnusedLocalEliminator(),
+                        new LocalPacker(),
+                        new NopEliminator(),
+                        new UnreachableCodeEliminator(),
+                        new LocalNameStandardizer()));
+            case FAST_BODY_INTERCEPTOR_PROFILE:
+                return Collections.singletonList(new UnreachableCodeEliminator());
+            case TYPED_BODY_INTERCEPTOR_PROFILE:
+                return BytecodeBodyInterceptors.Default.getBodyInterceptors();
+            default:
+                throw new IllegalArgumentException("Unsupported body interceptor profile '" + profile + "'.");
+        }
+    }
 
+    /** Wraps each of the given interceptors so the time spent in them is recorded. */
+    public static List<TimedBodyInterceptor> makeTimedBodyInterceptors(List<BodyInterceptor> bodyInterceptors) {
+        List<TimedBodyInterceptor> ret = new ArrayList<>();
+        for(BodyInterceptor bodyInterceptor : bodyInterceptors)
+            ret.add(new TimedBodyInterceptor(bodyInterceptor));
+        return Collections.unmodifiableList(ret);
+    }
+
+    public static AuxMutableJavaView makeJavaView(String classPath) {
+        return makeJavaView(classPath, null, makeBodyInterceptors(PRECISE_BODY_INTERCEPTOR_PROFILE), null, null);
+    }
+
+    /*
+     * If classPathIndexDir is not null, the type hierarchy of the view is built from the class path 
+     * index stored in this directory rather than by resolving every class on the class path. If the 
+     * class path cannot be indexed, the type hierarchy is built from the view as usual.
+     * 
+     * If libraryClassPath is not null, its classes are added to the view as library classes after the
+     * classes of the class path and are included in the class path index.
+     * 
+     * If classPathSlice is not null, only the classes of the class path in the slice are in the view and
+     * in the class path index. The library class path is never sliced.
+     */
+    public static AuxMutableJavaView makeJavaView(String classPath, Path classPathIndexDir, List<? extends BodyInterceptor> bodyInterceptors, 
+            String libraryClassPath, ClassPathSlice classPathSlice) {
         List<AnalysisInputLocation> inputLocations = new ArrayList<>();
-        inputLocations.add(new JavaClassPathAnalysisInputLocation(classPath, SourceType.Application, bodyInterceptors));
+        AnalysisInputLocation classPathLocation = new JavaClassPathAnalysisInputLocation(classPath, SourceType.Application, 
+                Collections.unmodifiableList(bodyInterceptors));
+        inputLocations.add(classPathSlice == null ? classPathLocation : new SlicedAnalysisInputLocation(classPathLocation, classPathSlice));
         //inputLocations.add(new DefaultRTJarAnalysisInputLocation());
+        if(libraryClassPath != null)
+            inputLocations.add(new JavaClassPathAnalysisInputLocation(libraryClassPath, SourceType.Library, Collections.unmodifiableList(bodyInterceptors)));
+
+        ClassPathIndex classPathIndex = null;
+        if(classPathIndexDir != null && classPathSlice == null) {
+            classPathIndex = ClassPathIndex.makeClassPathIndex(libraryClassPath == null ? classPath : classPath + File.pathSeparator + libraryClassPath, 
+                    classPathIndexDir);
+        } else if(classPathIndexDir != null) {
+            // The library classes are indexed separately so they are kept in full
+            classPathIndex = ClassPathIndex.makeClassPathIndex(classPath, classPathIndexDir);
+            if(classPathIndex != null)
+                classPathIndex = classPathIndex.slice(classPathSlice);
+            if(classPathIndex != null && libraryClassPath != null) {
+                ClassPathIndex libraryIndex = ClassPathIndex.makeClassPathIndex(libraryClassPath, classPathIndexDir);
+                classPathIndex = libraryIndex == null ? null : classPathIndex.append(libraryIndex);
+            }
+        }
+
+        return new AuxMutableJavaView(inputLocations, classPathIndex);
+    }
+
+    /*
+     * Selects the classes whose method bodies should be resolved before the call graph is built. For
+     * the filter mode these are the classes on the class path whose outgoing edges are not all denied 
+     * by the filter. The classes are taken from the class path index if there is one, so that no class 
+     * has to be resolved to make the selection.
+     */
+    public static List<ClassType> selectPrewarmClasses(AuxMutableJavaView view, CallGraphFilter cgFilter, String mode) {
+        String m = mode.toLowerCase();
+        if(m.equals(NO_BODY_PREWARM))
+            return Collections.emptyList();
+        Stream<ClassType> classes;
+        if(view.getClassPathIndex() != null)
+            classes = view.getClassPathIndex().getClasses().stream().map(c -> AsmUtil.toJimpleClassType(c.getName()));
+        else
+            classes = view.getClasses().stream().map(c -> c.getType());
+        switch(m) {
+            case FILTER_BODY_PREWARM:
+                AuxViewTypeHierarchy typeHierarchy = (AuxViewTypeHierarchy)view.getTypeHierarchy();
+                return classes.filter(t -> !cgFilter.deniedClass(t, typeHierarchy)).collect(Collectors.toList());
+            case ALL_BODY_PREWARM:
+                return classes.collect(Collectors.toList());
+            default:
+                throw new IllegalArgumentException("Unsupported body prewarm mode '" + mode + "'.");
+        }
+    }
 
-        return new MutableJavaView(inputLocations);
+    /*
+     * Resolves the bodies of all concrete methods in the given classes on a fork/join pool. The view
+     * caches the classes and each method caches its body, so the call graph algorithm finds them 
+     * ready instead of resolving and intercepting them one at a time. Returns the number of bodies 
+     * resolved.
+     */
+    public static long prewarmBodies(View view, Collection<ClassType> classes, int parallelism) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> classes.parallelStream()
+                .map(t -> view.getClass(t))
+                .filter(Optional::isPresent)
+                .flatMap(c -> c.get().getMethods().stream())
+                .filter(m -> m.hasBody())
+                .mapToLong(m -> {
+                    m.getBody();
+                    return 1;
+                }).sum()).get();
+        } finally {
+            pool.shutdown();
+        }
     }
 
     public static JavaSootClass makeClassWithEmptyMethod(MutableJavaView view, String fullClassName, String methodName) {
@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.snc.secres.tool.passive.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import sootup.callgraph.CallGraph;
+import sootup.core.signatures.MethodSignature;
+
+/*
+ * An index over a snapshot of a call graph for answering repeated shortest path and k-shortest path 
+ * queries. The call graph is copied into forward and reverse adjacency arrays and a small number of
+ * landmarks (the methods with the most calls) are selected. The distances from and to every landmark
+ * are precomputed which gives a constant time test for when one method can definitely not reach 
+ * another. Shortest paths are found with a bidirectional breadth first search where each side never
+ * expands into methods the landmarks prove cannot lie on a path. The k-shortest simple paths are 
+ * found with Yen's algorithm on top of the same search.
+ * 
+ * The index does not reflect changes made to the call graph after it was created. Queries on the
+ * same index are not thread safe.
+ */
+public class CallPathIndex {
+
+    private static final int MAX_LANDMARKS = 8;
+    private static final int UNREACHED = -1;
+
+    private final MethodSignature[] methods;
+    private final Map<MethodSignature,Integer> ids;
+    private final int[] calleeOffsets;
+    private final int[] callees;
+    private final int[] callerOffsets;
+    private final int[] callers;
+    // Distance from each landmark to every method and from every method to each landmark
+    private final int[][] fromLandmark;
+    private final int[][] toLandmark;
+
+    // Search state reused between queries, a slot is only valid when its mark equals the current mark
+    private final int[] forwardMark;
+    private final int[] forwardParent;
+    private final int[] forwardDepth;
+    private final int[] backwardMark;
+    private final int[] backwardParent;
+    private final int[] backwardDepth;
+    private int mark;
+
+    public CallPathIndex(CallGraph callGraph) {
+        Set<MethodSignature> sigs = callGraph.getMethodSignatures();
+        int n = sigs.size();
+        this.methods = sigs.toArray(new MethodSignature[n]);
+        Arrays.sort(methods, Comparator.comparing(MethodSignature::toString));
+        this.ids = new HashMap<>(n * 2);
+        for(int i = 0; i < n; i++) {
+            ids.put(methods[i], i);
+        }
+
+        int[][] out = new int[n][];
+        int[] inCount = new int[n];
+        int edgeCount = 0;
+        for(int i = 0; i < n; i++) {
+            Set<MethodSignature> dests = callGraph.callsFrom(methods[i]);
+            out[i] = new int[dests.size()];
+            int j = 0;
+            for(MethodSignature dest : dests) {
+                int id = ids.get(dest);
+                out[i][j++] = id;
+                inCount[id]++;
+            }
+            Arrays.sort(out[i]);
+            edgeCount += j;
+        }
+        this.calleeOffsets = new int[n + 1];
+        this.callees = new int[edgeCount];
+        this.callerOffsets = new int[n + 1];
+        this.callers = new int[edgeCount];
+        for(int i = 0; i < n; i++) {
+            calleeOffsets[i + 1] = calleeOffsets[i] + out[i].length;
+            System.arraycopy(out[i], 0, callees, calleeOffsets[i], out[i].length);
+            callerOffsets[i + 1] = callerOffsets[i] + inCount[i];
+        }
+        int[] fill = Arrays.copyOf(callerOffsets, n);
+        for(int i = 0; i < n; i++) {
+            for(int dest : out[i]) {
+                callers[fill[dest]++] = i;
+            }
+        }
+
+        this.forwardMark = new int[n];
+        this.forwardParent = new int[n];
+        this.forwardDepth = new int[n];
+        this.backwardMark = new int[n];
+        this.backwardParent = new int[n];
+        this.backwardDepth = new int[n];
+        this.mark = 0;
+
+        Integer[] order = new Integer[n];
+        for(int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> -(calleeOffsets[i + 1] - calleeOffsets[i] + callerOffsets[i + 1] - callerOffsets[i]))
+            .thenComparingInt(i -> i));
+        int landmarks = Math.min(MAX_LANDMARKS, n);
+        this.fromLandmark = new int[landmarks][];
+        this.toLandmark = new int[landmarks][];
+        for(int i = 0; i < landmarks; i++) {
+            fromLandmark[i] = distances(order[i], calleeOffsets, callees);
+            toLandmark[i] = distances(order[i], callerOffsets, callers);
+        }
+    }
+
+    private static int[] distances(int start, int[] offsets, int[] edges) {
+        int[] ret = new int[offsets.length - 1];
+        Arrays.fill(ret, UNREACHED);
+        int[] queue = new int[ret.length];
+        int head = 0;
+        int tail = 0;
+        ret[start] = 0;
+        queue[tail++] = start;
+        while(head < tail) {
+            int cur = queue[head++];
+            for(int i = offsets[cur]; i < offsets[cur + 1]; i++) {
+                int next = edges[i];
+                if(ret[next] == UNREACHED) {
+                    ret[next] = ret[cur] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return ret;
+    }
+
+    public int getMethodCount() {
+        return methods.length;
+    }
+
+    public int getCallCount() {
+        return callees.length;
+    }
+
+    /** True if the landmarks prove that there is no call path from one method to the other. */
+    private boolean cannotReach(int from, int to) {
+        for(int i = 0; i < fromLandmark.length; i++) {
+            if(fromLandmark[i][from] != UNREACHED && fromLandmark[i][to] == UNREACHED)
+                return true;
+            if(toLandmark[i][to] != UNREACHED && toLandmark[i][from] == UNREACHED)
+                return true;
+        }
+        return false;
+    }
+
+    /** Returns a shortest call path between the two methods including both ends or null if there is none. */
+    public List<MethodSignature> getShortestPath(MethodSignature from, MethodSignature to) {
+        Integer s = ids.get(from);
+        Integer t = ids.get(to);
+        if(s == null || t == null)
+            return null;
+        int[] path = search(s, t, null, null);
+        return path == null ? null : toSignatures(path);
+    }
+
+    /*
+     * Returns up to k shortest simple call paths between the two methods ordered by length using Yen's
+     * algorithm. Paths of the same length are ordered by the signatures of their methods.
+     */
+    public List<List<MethodSignature>> getShortestPaths(MethodSignature from, MethodSignature to, int k) {
+        Integer s = ids.get(from);
+        Integer t = ids.get(to);
+        if(s == null || t == null || k <= 0)
+            return Collections.emptyList();
+        int[] first = search(s, t, null, null);
+        if(first == null)
+            return Collections.emptyList();
+
+        List<int[]> found = new ArrayList<>();
+        found.add(first);
+        PriorityQueue<int[]> candidates = new PriorityQueue<>(Comparator.comparingInt((int[] p) -> p.length).thenComparing(Arrays::compare));
+        Set<List<Integer>> seen = new HashSet<>();
+        seen.add(asList(first));
+        while(found.size() < k) {
+            int[] prev = found.get(found.size() - 1);
+            for(int i = 0; i < prev.length - 1; i++) {
+                int spur = prev[i];
+                // Calls already used by a found path with the same root may not be taken again
+                Set<Long> blockedCalls = new HashSet<>();
+                for(int[] p : found) {
+                    if(p.length > i + 1 && Arrays.equals(p, 0, i + 1, prev, 0, i + 1))
+                        blockedCalls.add(callKey(p[i], p[i + 1]));
+                }
+                // The root path may not be revisited so the result stays a simple path
+                boolean[] blockedMethods = new boolean[methods.length];
+                for(int j = 0; j < i; j++) {
+                    blockedMethods[prev[j]] = true;
+                }
+                int[] spurPath = search(spur, t, blockedMethods, blockedCalls);
+                if(spurPath != null) {
+                    int[] candidate = new int[i + spurPath.length];
+                    System.arraycopy(prev, 0, candidate, 0, i);
+                    System.arraycopy(spurPath, 0, candidate, i, spurPath.length);
+                    if(seen.add(asList(candidate)))
+                        candidates.add(candidate);
+                }
+            }
+            if(candidates.isEmpty())
+                break;
+            found.add(candidates.poll());
+        }
+
+        List<List<MethodSignature>> ret = new ArrayList<>(found.size());
+        for(int[] p : found) {
+            ret.add(toSignatures(p));
+        }
+        return ret;
+    }
+
+    /*
+     * Level synchronized bidirectional breadth first search that always expands the smaller frontier.
+     * Once a level connects the two searches the shortest connection found in that level is a shortest 
+     * path. Methods that the landmarks prove cannot be on a path from s to t are never expanded.
+     */
+    private int[] search(int s, int t, boolean[] blockedMethods, Set<Long> blockedCalls) {
+        if(s == t)
+            return new int[] {s};
+        if(cannotReach(s, t))
+            return null;
+        mark++;
+        forwardMark[s] = mark;
+        forwardParent[s] = -1;
+        forwardDepth[s] = 0;
+        backwardMark[t] = mark;
+        backwardParent[t] = -1;
+        backwardDepth[t] = 0;
+        int[] forward = {s};
+        int[] backward = {t};
+        int bestLength = Integer.MAX_VALUE;
+        int bestFrom = -1;
+        int bestTo = -1;
+        while(forward.length > 0 && backward.length > 0) {
+            boolean expandForward = forward.length <= backward.length;
+            int[] frontier = expandForward ? forward : backward;
+            int[] next = new int[16];
+            int size = 0;
+            for(int cur : frontier) {
+                int[] offsets = expandForward ? calleeOffsets : callerOffsets;
+                int[] edges = expandForward ? callees : callers;
+                for(int i = offsets[cur]; i < offsets[cur + 1]; i++) {
+                    int other = edges[i];
+                    if(blockedMethods != null && blockedMethods[other])
+                        continue;
+                    if(blockedCalls != null && blockedCalls.contains(expandForward ? callKey(cur, other) : callKey(other, cur)))
+                        continue;
+                    if(expandForward) {
+                        if(backwardMark[other] == mark) {
+                            int length = forwardDepth[cur] + 1 + backwardDepth[other];
+                            if(length < bestLength) {
+                                bestLength = length;
+                                bestFrom = cur;
+                                bestTo = other;
+                            }
+                        }
+                        if(forwardMark[other] != mark && !cannotReach(other, t)) {
+                            forwardMark[other] = mark;
+                            forwardParent[other] = cur;
+                            forwardDepth[other] = forwardDepth[cur] + 1;
+                            if(size == next.length)
+                                next = Arrays.copyOf(next, size * 2);
+                            next[size++] = other;
+                        }
+                    } else {
+                        if(forwardMark[other] == mark) {
+                            int length = forwardDepth[other] + 1 + backwardDepth[cur];
+                            if(length < bestLength) {
+                                bestLength = length;
+                                bestFrom = other;
+                                bestTo = cur;
+                            }
+                        }
+                        if(backwardMark[other] != mark && !cannotReach(s, other)) {
+                            backwardMark[other] = mark;
+                            backwardParent[other] = cur;
+                            backwardDepth[other] = backwardDepth[cur] + 1;
+                            if(size == next.length)
+                                next = Arrays.copyOf(next, size * 2);
+                            next[size++] = other;
+                        }
+                    }
+                }
+            }
+            if(bestLength != Integer.MAX_VALUE)
+                break;
+            if(expandForward)
+                forward = Arrays.copyOf(next, size);
+            else
+                backward = Arrays.copyOf(next, size);
+        }
+        if(bestLength == Integer.MAX_VALUE)
+            return null;
+
+        int[] ret = new int[bestLength + 1];
+        int i = forwardDepth[bestFrom];
+        for(int cur = bestFrom; cur != -1; cur = forwardParent[cur]) {
+            ret[i--] = cur;
+        }
+        i = forwardDepth[bestFrom] + 1;
+        for(int cur = bestTo; cur != -1; cur = backwardParent[cur]) {
+            ret[i++] = cur;
+        }
+        return ret;
+    }
+
+    private static long callKey(int from, int to) {
+        return ((long)from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    private static List<Integer> asList(int[] path) {
+        List<Integer> ret = new ArrayList<>(path.length);
+        for(int id : path) {
+            ret.add(id);
+        }
+        return ret;
+    }
+
+    private List<MethodSignature> toSignatures(int[] path) {
+        List<MethodSignature> ret = new ArrayList<>(path.length);
+        for(int id : path) {
+            ret.add(methods[id]);
+        }
+        return ret;
+    }
+
+}
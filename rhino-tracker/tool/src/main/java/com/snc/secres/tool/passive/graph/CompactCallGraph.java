@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.snc.secres.tool.passive.graph;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/*
+ * A read only call graph backed by a memory mapped file. The file is laid out so it can be queried 
+ * directly from the mapping without being parsed. It consists of a fixed size header followed by:
+ * 
+ *   long[nodes + 1]  offsets of each signature in the string data
+ *   int[nodes + 1]   offsets of each node's callees in the callee table (CSR)
+ *   int[edges]       callee table
+ *   int[nodes + 1]   offsets of each node's callers in the caller table (CSR)
+ *   int[edges]       caller table
+ *   byte[]           UTF-8 string data of all signatures
+ * 
+ * Nodes are numbered in the natural order of their signatures so a signature can be looked up with 
+ * a binary search over the string data. The callees and callers of a node are sorted by id. All 
+ * values are big endian.
+ */
+public class CompactCallGraph implements Closeable {
+
+    public static final String FILE_EXT = ".cgb";
+
+    private static final int MAGIC = 0x52544347;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    // Individual mappings are limited to 2 GB so the string data is mapped in chunks
+    private static final int STRING_CHUNK_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final int nodeCount;
+    private final int edgeCount;
+    private final LongBuffer stringOffsets;
+    private final IntBuffer calleeOffsets;
+    private final IntBuffer callees;
+    private final IntBuffer callerOffsets;
+    private final IntBuffer callers;
+    private final MappedByteBuffer[] stringData;
+
+    private CompactCallGraph(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if(header.getInt() != MAGIC)
+            throw new IOException("Not a compact call graph file.");
+        int version = header.getInt();
+        if(version != VERSION)
+            throw new IOException("Unsupported compact call graph version " + version + ".");
+        this.nodeCount = header.getInt();
+        this.edgeCount = header.getInt();
+        long stringOffsetsPos = header.getLong();
+        long calleeOffsetsPos = header.getLong();
+        long calleesPos = header.getLong();
+        long callerOffsetsPos = header.getLong();
+        long callersPos = header.getLong();
+        long stringDataPos = header.getLong();
+        this.stringOffsets = map(stringOffsetsPos, 8L * (nodeCount + 1)).asLongBuffer();
+        this.calleeOffsets = map(calleeOffsetsPos, 4L * (nodeCount + 1)).asIntBuffer();
+        this.callees = map(calleesPos, 4L * edgeCount).asIntBuffer();
+        this.callerOffsets = map(callerOffsetsPos, 4L * (nodeCount + 1)).asIntBuffer();
+        this.callers = map(callersPos, 4L * edgeCount).asIntBuffer();
+        long stringDataSize = stringOffsets.get(nodeCount);
+        if(stringDataPos + stringDataSize > channel.size())
+            throw new IOException("Truncated compact call graph file.");
+        this.stringData = new MappedByteBuffer[(int)((stringDataSize + STRING_CHUNK_SIZE - 1) / STRING_CHUNK_SIZE)];
+        for(int i = 0; i < stringData.length; i++) {
+            long start = (long)i * STRING_CHUNK_SIZE;
+            stringData[i] = map(stringDataPos + start, Math.min(STRING_CHUNK_SIZE, stringDataSize - start));
+        }
+    }
+
+    public static CompactCallGraph open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new CompactCallGraph(channel);
+        } catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private MappedByteBuffer map(long pos, long size) throws IOException {
+        if(size > Integer.MAX_VALUE || pos + size > channel.size())
+            throw new IOException("Invalid section of size " + size + " at " + pos + " in compact call graph file.");
+        return channel.map(FileChannel.MapMode.READ_ONLY, pos, size);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public String getSignature(int id) {
+        long start = stringOffsets.get(id);
+        byte[] bytes = new byte[(int)(stringOffsets.get(id + 1) - start)];
+        int copied = 0;
+        while(copied < bytes.length) {
+            long pos = start + copied;
+            ByteBuffer chunk = stringData[(int)(pos / STRING_CHUNK_SIZE)].duplicate();
+            chunk.position((int)(pos % STRING_CHUNK_SIZE));
+            int len = Math.min(bytes.length - copied, chunk.remaining());
+            chunk.get(bytes, copied, len);
+            copied += len;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Returns the id of the node with the given signature or -1 if there is no such node. */
+    public int getId(String signature) {
+        int low = 0;
+        int high = nodeCount - 1;
+        while(low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = getSignature(mid).compareTo(signature);
+            if(cmp < 0)
+                low = mid + 1;
+            else if(cmp > 0)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -1;
+    }
+
+    public int[] getCallees(int id) {
+        return slice(callees, calleeOffsets, id);
+    }
+
+    public int[] getCallers(int id) {
+        return slice(callers, callerOffsets, id);
+    }
+
+    private static int[] slice(IntBuffer table, IntBuffer offsets, int id) {
+        int start = offsets.get(id);
+        int[] ret = new int[offsets.get(id + 1) - start];
+        table.duplicate().position(start).get(ret);
+        return ret;
+    }
+
+    /** Returns the ids of all nodes reachable from the given node through one or more calls. */
+    public BitSet getReachable(int id) {
+        BitSet seen = new BitSet(nodeCount);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(id);
+        while(!queue.isEmpty()) {
+            int cur = queue.poll();
+            for(int i = calleeOffsets.get(cur), end = calleeOffsets.get(cur + 1); i < end; i++) {
+                int next = callees.get(i);
+                if(!seen.get(next)) {
+                    seen.set(next);
+                    queue.add(next);
+                }
+            }
+        }
+        return seen;
+    }
+
+    /** Returns a shortest call path from one node to another including both ends or null if there is none. */
+    public int[] getPath(int from, int to) {
+        if(from == to)
+            return new int[] {from};
+        int[] parents = new int[nodeCount];
+        Arrays.fill(parents, -1);
+        parents[from] = from;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(from);
+        while(!queue.isEmpty()) {
+            int cur = queue.poll();
+            for(int i = calleeOffsets.get(cur), end = calleeOffsets.get(cur + 1); i < end; i++) {
+                int next = callees.get(i);
+                if(parents[next] == -1) {
+                    parents[next] = cur;
+                    if(next == to) {
+                        int len = 1;
+                        for(int n = to; n != from; n = parents[n])
+                            len++;
+                        int[] ret = new int[len];
+                        for(int n = to; len > 0; n = parents[n])
+                            ret[--len] = n;
+                        return ret;
+                    }
+                    queue.add(next);
+                }
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Writes a compact call graph file. The signatures must be sorted in their natural order and the 
+     * edges are given as parallel arrays of caller and callee ids. Duplicate edges are dropped.
+     */
+    public static void write(Path file, List<String> signatures, int[] sources, int[] targets) throws IOException {
+        int nodeCount = signatures.size();
+        long[] edges = new long[sources.length];
+        for(int i = 0; i < sources.length; i++) {
+            edges[i] = ((long)sources[i] << 32) | (targets[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(edges);
+        int edgeCount = 0;
+        for(int i = 0; i < edges.length; i++) {
+            if(i == 0 || edges[i] != edges[i - 1])
+                edges[edgeCount++] = edges[i];
+        }
+
+        // Edges are sorted by caller then callee so both tables come out sorted
+        int[] calleeOffsets = new int[nodeCount + 1];
+        int[] calleeTable = new int[edgeCount];
+        int[] callerOffsets = new int[nodeCount + 1];
+        int[] callerTable = new int[edgeCount];
+        for(int i = 0; i < edgeCount; i++) {
+            calleeOffsets[(int)(edges[i] >>> 32) + 1]++;
+            callerOffsets[(int)edges[i] + 1]++;
+        }
+        for(int i = 0; i < nodeCount; i++) {
+            calleeOffsets[i + 1] += calleeOffsets[i];
+            callerOffsets[i + 1] += callerOffsets[i];
+        }
+        int[] callerFill = Arrays.copyOf(callerOffsets, nodeCount);
+        for(int i = 0; i < edgeCount; i++) {
+            calleeTable[i] = (int)edges[i];
+            callerTable[callerFill[(int)edges[i]]++] = (int)(edges[i] >>> 32);
+        }
+
+        byte[][] strings = new byte[nodeCount][];
+        long[] stringOffsets = new long[nodeCount + 1];
+        for(int i = 0; i < nodeCount; i++) {
+            strings[i] = signatures.get(i).getBytes(StandardCharsets.UTF_8);
+            stringOffsets[i + 1] = stringOffsets[i] + strings[i].length;
+        }
+
+        long stringOffsetsPos = HEADER_SIZE;
+        long calleeOffsetsPos = stringOffsetsPos + 8L * (nodeCount + 1);
+        long calleesPos = calleeOffsetsPos + 4L * (nodeCount + 1);
+        long callerOffsetsPos = calleesPos + 4L * edgeCount;
+        long callersPos = callerOffsetsPos + 4L * (nodeCount + 1);
+        long stringDataPos = callersPos + 4L * edgeCount;
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(nodeCount);
+            out.writeInt(edgeCount);
+            out.writeLong(stringOffsetsPos);
+            out.writeLong(calleeOffsetsPos);
+            out.writeLong(calleesPos);
+            out.writeLong(callerOffsetsPos);
+            out.writeLong(callersPos);
+            out.writeLong(stringDataPos);
+            for(long l : stringOffsets)
+                out.writeLong(l);
+            writeInts(out, calleeOffsets);
+            writeInts(out, calleeTable);
+            writeInts(out, callerOffsets);
+            writeInts(out, callerTable);
+            for(byte[] s : strings)
+                out.write(s);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for(int v : values)
+            out.writeInt(v);
+    }
+
+}
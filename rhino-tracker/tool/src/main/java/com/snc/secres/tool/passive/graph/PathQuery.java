@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.snc.secres.tool.passive.graph;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import sootup.core.IdentifierFactory;
+import sootup.core.signatures.MethodSignature;
+
+/*
+ * A request for the k shortest call paths from a source method, by default the entry point, to a
+ * target method such as a sensitive Java API.
+ */
+public class PathQuery {
+
+    private final MethodSignature source;
+    private final MethodSignature target;
+    private final int maxPaths;
+
+    public PathQuery(MethodSignature source, MethodSignature target, int maxPaths) {
+        this.source = Objects.requireNonNull(source);
+        this.target = Objects.requireNonNull(target);
+        this.maxPaths = maxPaths;
+    }
+
+    public MethodSignature getSource() {
+        return source;
+    }
+
+    public MethodSignature getTarget() {
+        return target;
+    }
+
+    public int getMaxPaths() {
+        return maxPaths;
+    }
+
+    public void writeResults(Writer out, CallPathIndex index) throws IOException {
+        List<List<MethodSignature>> paths = maxPaths == 1 ? toList(index.getShortestPath(source, target)) 
+            : index.getShortestPaths(source, target, maxPaths);
+        out.write("Query: " + source + " -> " + target + " (max_paths=" + maxPaths + ")\n");
+        if(paths.isEmpty()) {
+            out.write("  No path.\n");
+        }
+        for(int i = 0; i < paths.size(); i++) {
+            List<MethodSignature> path = paths.get(i);
+            out.write("  Path " + (i + 1) + " (" + (path.size() - 1) + " calls):\n");
+            for(MethodSignature m : path) {
+                out.write("    " + m + "\n");
+            }
+        }
+        out.write("\n");
+    }
+
+    private static List<List<MethodSignature>> toList(List<MethodSignature> path) {
+        return path == null ? Collections.emptyList() : Collections.singletonList(path);
+    }
+
+    @Override
+    public String toString() {
+        return "PathQuery [source=" + source + ", target=" + target + ", maxPaths=" + maxPaths + "]";
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + maxPaths;
+        result = prime * result + source.hashCode();
+        result = prime * result + target.hashCode();
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        PathQuery other = (PathQuery) obj;
+        return maxPaths == other.maxPaths && source.equals(other.source) && target.equals(other.target);
+    }
+
+    /*
+     * Each entry requires a 'target' method signature and optionally takes a 'source' method signature
+     * which defaults to the given source and a 'max_paths' count which defaults to 1.
+     */
+    public static List<PathQuery> makePathQueries(List<Map<String,String>> entries, MethodSignature defaultSource, IdentifierFactory identifierFactory) {
+        List<PathQuery> ret = new ArrayList<>();
+        if(entries == null)
+            return ret;
+        for(Map<String,String> entry : entries) {
+            Map<String,String> normalized = new HashMap<>();
+            // Yaml may give numbers as integers even though the entries are declared as strings
+            ((Map<?,?>)entry).forEach((k, v) -> normalized.put(String.valueOf(k).trim().toLowerCase(), v == null ? null : String.valueOf(v).trim()));
+
+            String target = normalized.get("target");
+            if(target == null || target.isEmpty())
+                throw new IllegalArgumentException("Error: Path query entry " + entry + " is missing a 'target' method signature.");
+            String source = normalized.get("source");
+            String maxPaths = normalized.getOrDefault("max_paths", "1");
+            int k;
+            try {
+                k = Integer.parseInt(maxPaths);
+            } catch(NumberFormatException e) {
+                throw new IllegalArgumentException("Error: 'max_paths' of path query entry " + entry + " must be a number.", e);
+            }
+            if(k <= 0)
+                throw new IllegalArgumentException("Error: 'max_paths' of path query entry " + entry + " must be greater than 0.");
+            ret.add(new PathQuery(source == null || source.isEmpty() ? defaultSource : identifierFactory.parseMethodSignature(source), 
+                    identifierFactory.parseMethodSignature(target), k));
+        }
+        return ret;
+    }
+
+}
@@ -0,0 +1,497 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.snc.secres.tool.passive.graph;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import sootup.callgraph.CallGraph;
+import sootup.core.signatures.MethodSignature;
+
+/*
+ * Answers whether one method can reach another through zero or more calls. The call graph is 
+ * condensed into a DAG of its strongly connected components (Tarjan) and each component is given:
+ * 
+ *   - The pre-order interval of a depth first spanning forest of the DAG. A component whose number 
+ *     falls into the interval of another is reachable from it.
+ *   - A number of GRAIL labels each taken from a randomized depth first traversal. A component whose
+ *     label is not contained in the label of another is not reachable from it.
+ * 
+ * Most queries are answered by these two checks in constant time. The rest fall back to a depth 
+ * first search of the DAG that skips every component the labels rule out.
+ * 
+ * The index can be written to a file and mapped back in without parsing. The file consists of a 
+ * fixed size header followed by the signature offsets (long[methods + 1]), the component of each 
+ * method (int[methods]), the DAG in CSR form (int[components + 1] and int[dag edges]), the labels 
+ * (int[components * (1 + labels) * 2]), and the UTF-8 signature data. Methods are numbered in the 
+ * natural order of their signatures just as in CompactCallGraph. All values are big endian.
+ */
+public class ReachabilityIndex implements Closeable {
+
+    public static final String FILE_EXT = ".reach";
+
+    private static final int MAGIC = 0x52545249;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int GRAIL_LABELS = 3;
+    private static final long SEED = 0x5EED;
+
+    private final FileChannel channel;
+    private final int methodCount;
+    private final int componentCount;
+    // Interval pairs per component, the first pair is the spanning forest interval
+    private final int pairs;
+    private final LongBuffer stringOffsets;
+    private final IntBuffer components;
+    private final IntBuffer dagOffsets;
+    private final IntBuffer dagEdges;
+    private final IntBuffer labels;
+    private final ByteBuffer stringData;
+    private final Map<String,Integer> ids;
+
+    private ReachabilityIndex(FileChannel channel, int methodCount, int componentCount, int pairs, LongBuffer stringOffsets, 
+            IntBuffer components, IntBuffer dagOffsets, IntBuffer dagEdges, IntBuffer labels, ByteBuffer stringData, Map<String,Integer> ids) {
+        this.channel = channel;
+        this.methodCount = methodCount;
+        this.componentCount = componentCount;
+        this.pairs = pairs;
+        this.stringOffsets = stringOffsets;
+        this.components = components;
+        this.dagOffsets = dagOffsets;
+        this.dagEdges = dagEdges;
+        this.labels = labels;
+        this.stringData = stringData;
+        this.ids = ids;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(channel != null)
+            channel.close();
+    }
+
+    public int getMethodCount() {
+        return methodCount;
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    public int getDagEdgeCount() {
+        return dagEdges.limit();
+    }
+
+    public String getSignature(int id) {
+        long start = stringOffsets.get(id);
+        byte[] bytes = new byte[(int)(stringOffsets.get(id + 1) - start)];
+        stringData.duplicate().position((int)start).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Returns the id of the method with the given signature or -1 if there is no such method. */
+    public int getId(String signature) {
+        if(ids != null) {
+            Integer ret = ids.get(signature);
+            return ret == null ? -1 : ret;
+        }
+        int low = 0;
+        int high = methodCount - 1;
+        while(low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = getSignature(mid).compareTo(signature);
+            if(cmp < 0)
+                low = mid + 1;
+            else if(cmp > 0)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -1;
+    }
+
+    public boolean reaches(MethodSignature from, MethodSignature to) {
+        return reaches(from.toString(), to.toString());
+    }
+
+    /** True if the method to is reachable from the method from. Unknown methods reach nothing. */
+    public boolean reaches(String from, String to) {
+        int a = getId(from);
+        int b = getId(to);
+        return a >= 0 && b >= 0 && reaches(a, b);
+    }
+
+    public boolean reaches(int from, int to) {
+        int a = components.get(from);
+        int b = components.get(to);
+        if(a == b || treeContains(a, b))
+            return true;
+        if(!labelsContain(a, b))
+            return false;
+        // Neither check was conclusive so search the DAG only through components that may reach b
+        BitSet visited = new BitSet(componentCount);
+        int[] stack = new int[16];
+        int size = 0;
+        stack[size++] = a;
+        visited.set(a);
+        while(size > 0) {
+            int cur = stack[--size];
+            for(int i = dagOffsets.get(cur), end = dagOffsets.get(cur + 1); i < end; i++) {
+                int next = dagEdges.get(i);
+                if(next == b || treeContains(next, b))
+                    return true;
+                if(!visited.get(next) && labelsContain(next, b)) {
+                    visited.set(next);
+                    if(size == stack.length)
+                        stack = Arrays.copyOf(stack, size * 2);
+                    stack[size++] = next;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean treeContains(int a, int b) {
+        int base = a * pairs * 2;
+        int pre = labels.get(b * pairs * 2);
+        return labels.get(base) <= pre && pre < labels.get(base + 1);
+    }
+
+    private boolean labelsContain(int a, int b) {
+        int baseA = a * pairs * 2;
+        int baseB = b * pairs * 2;
+        for(int i = 2; i < pairs * 2; i += 2) {
+            if(labels.get(baseA + i) > labels.get(baseB + i) || labels.get(baseB + i + 1) > labels.get(baseA + i + 1))
+                return false;
+        }
+        return true;
+    }
+
+    public static ReachabilityIndex open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if(header.getInt() != MAGIC)
+                throw new IOException("Not a reachability index file.");
+            int version = header.getInt();
+            if(version != VERSION)
+                throw new IOException("Unsupported reachability index version " + version + ".");
+            int methodCount = header.getInt();
+            int componentCount = header.getInt();
+            int dagEdgeCount = header.getInt();
+            int pairs = header.getInt();
+            long stringOffsetsPos = header.getLong();
+            long componentsPos = header.getLong();
+            long dagOffsetsPos = header.getLong();
+            long dagEdgesPos = header.getLong();
+            long labelsPos = header.getLong();
+            LongBuffer stringOffsets = map(channel, stringOffsetsPos, 8L * (methodCount + 1)).asLongBuffer();
+            return new ReachabilityIndex(channel, methodCount, componentCount, pairs, stringOffsets, 
+                map(channel, componentsPos, 4L * methodCount).asIntBuffer(), 
+                map(channel, dagOffsetsPos, 4L * (componentCount + 1)).asIntBuffer(), 
+                map(channel, dagEdgesPos, 4L * dagEdgeCount).asIntBuffer(), 
+                map(channel, labelsPos, 8L * componentCount * pairs).asIntBuffer(), 
+                map(channel, labelsPos + 8L * componentCount * pairs, stringOffsets.get(methodCount)), null);
+        } catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long pos, long size) throws IOException {
+        if(size > Integer.MAX_VALUE || pos + size > channel.size())
+            throw new IOException("Invalid section of size " + size + " at " + pos + " in reachability index file.");
+        return channel.map(FileChannel.MapMode.READ_ONLY, pos, size);
+    }
+
+    public void write(Path file) throws IOException {
+        long stringOffsetsPos = HEADER_SIZE;
+        long componentsPos = stringOffsetsPos + 8L * (methodCount + 1);
+        long dagOffsetsPos = componentsPos + 4L * methodCount;
+        long dagEdgesPos = dagOffsetsPos + 4L * (componentCount + 1);
+        long labelsPos = dagEdgesPos + 4L * dagEdges.limit();
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(methodCount);
+            out.writeInt(componentCount);
+            out.writeInt(dagEdges.limit());
+            out.writeInt(pairs);
+            out.writeLong(stringOffsetsPos);
+            out.writeLong(componentsPos);
+            out.writeLong(dagOffsetsPos);
+            out.writeLong(dagEdgesPos);
+            out.writeLong(labelsPos);
+            for(int i = 0; i <= methodCount; i++)
+                out.writeLong(stringOffsets.get(i));
+            writeInts(out, components);
+            writeInts(out, dagOffsets);
+            writeInts(out, dagEdges);
+            writeInts(out, labels);
+            ByteBuffer data = stringData.duplicate();
+            data.rewind();
+            byte[] chunk = new byte[1 << 16];
+            while(data.hasRemaining()) {
+                int len = Math.min(chunk.length, data.remaining());
+                data.get(chunk, 0, len);
+                out.write(chunk, 0, len);
+            }
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, IntBuffer values) throws IOException {
+        for(int i = 0; i < values.limit(); i++)
+            out.writeInt(values.get(i));
+    }
+
+    public static ReachabilityIndex build(CallGraph callGraph) {
+        Set<MethodSignature> sigs = callGraph.getMethodSignatures();
+        int n = sigs.size();
+        MethodSignature[] methods = sigs.toArray(new MethodSignature[n]);
+        String[] names = new String[n];
+        Arrays.sort(methods, Comparator.comparing(MethodSignature::toString));
+        Map<String,Integer> ids = new HashMap<>(n * 2);
+        Map<MethodSignature,Integer> sigIds = new HashMap<>(n * 2);
+        for(int i = 0; i < n; i++) {
+            names[i] = methods[i].toString();
+            ids.put(names[i], i);
+            sigIds.put(methods[i], i);
+        }
+        int[][] out = new int[n][];
+        for(int i = 0; i < n; i++) {
+            Set<MethodSignature> dests = callGraph.callsFrom(methods[i]);
+            out[i] = new int[dests.size()];
+            int j = 0;
+            for(MethodSignature dest : dests) {
+                out[i][j++] = sigIds.get(dest);
+            }
+            Arrays.sort(out[i]);
+        }
+
+        int[] comp = condense(out);
+        int c = 0;
+        for(int v : comp)
+            c = Math.max(c, v + 1);
+
+        // Edges of the condensation without self loops or duplicates
+        List<BitSet> succ = new ArrayList<>(c);
+        for(int i = 0; i < c; i++)
+            succ.add(new BitSet());
+        for(int i = 0; i < n; i++) {
+            for(int dest : out[i]) {
+                if(comp[i] != comp[dest])
+                    succ.get(comp[i]).set(comp[dest]);
+            }
+        }
+        int[] dagOffsets = new int[c + 1];
+        for(int i = 0; i < c; i++)
+            dagOffsets[i + 1] = dagOffsets[i] + succ.get(i).cardinality();
+        int[] dagEdges = new int[dagOffsets[c]];
+        for(int i = 0; i < c; i++) {
+            int j = dagOffsets[i];
+            for(int next = succ.get(i).nextSetBit(0); next >= 0; next = succ.get(i).nextSetBit(next + 1))
+                dagEdges[j++] = next;
+        }
+
+        int pairs = 1 + GRAIL_LABELS;
+        int[] labels = new int[c * pairs * 2];
+        Random random = new Random(SEED);
+        for(int p = 0; p < pairs; p++) {
+            label(dagOffsets, dagEdges, labels, pairs, p, p == 0 ? null : random);
+        }
+
+        long[] stringOffsets = new long[n + 1];
+        byte[][] strings = new byte[n][];
+        for(int i = 0; i < n; i++) {
+            strings[i] = names[i].getBytes(StandardCharsets.UTF_8);
+            stringOffsets[i + 1] = stringOffsets[i] + strings[i].length;
+        }
+        if(stringOffsets[n] > Integer.MAX_VALUE)
+            throw new IllegalStateException("The signatures of the call graph are too large for a reachability index.");
+        ByteBuffer stringData = ByteBuffer.allocate((int)stringOffsets[n]);
+        for(byte[] s : strings)
+            stringData.put(s);
+        stringData.flip();
+
+        return new ReachabilityIndex(null, n, c, pairs, LongBuffer.wrap(stringOffsets), IntBuffer.wrap(comp), IntBuffer.wrap(dagOffsets), 
+            IntBuffer.wrap(dagEdges), IntBuffer.wrap(labels), stringData, ids);
+    }
+
+    /*
+     * Iterative Tarjan. Components are numbered in the order they are completed which is a reverse
+     * topological order of the condensation.
+     */
+    private static int[] condense(int[][] out) {
+        int n = out.length;
+        int[] index = new int[n];
+        int[] low = new int[n];
+        int[] comp = new int[n];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int stackSize = 0;
+        int[] callStack = new int[n];
+        int[] edgePos = new int[n];
+        int counter = 0;
+        int components = 0;
+        for(int root = 0; root < n; root++) {
+            if(index[root] != -1)
+                continue;
+            int depth = 0;
+            callStack[depth++] = root;
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            edgePos[root] = 0;
+            while(depth > 0) {
+                int v = callStack[depth - 1];
+                if(edgePos[v] < out[v].length) {
+                    int w = out[v][edgePos[v]++];
+                    if(index[w] == -1) {
+                        index[w] = low[w] = counter++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        edgePos[w] = 0;
+                        callStack[depth++] = w;
+                    } else if(onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                } else {
+                    depth--;
+                    if(depth > 0) {
+                        int parent = callStack[depth - 1];
+                        low[parent] = Math.min(low[parent], low[v]);
+                    }
+                    if(low[v] == index[v]) {
+                        int w;
+                        do {
+                            w = stack[--stackSize];
+                            onStack[w] = false;
+                            comp[w] = components;
+                        } while(w != v);
+                        components++;
+                    }
+                }
+            }
+        }
+        return comp;
+    }
+
+    /*
+     * Depth first traversal of the DAG. Without a random source this records the pre-order interval
+     * of the spanning forest. With a random source the roots and children are visited in a random 
+     * order and the GRAIL label [min rank of all descendants, post-order rank] is recorded.
+     */
+    private static void label(int[] offsets, int[] edges, int[] labels, int pairs, int pair, Random random) {
+        int c = offsets.length - 1;
+        boolean[] hasParent = new boolean[c];
+        for(int e : edges)
+            hasParent[e] = true;
+        int[] roots = new int[c];
+        int rootCount = 0;
+        for(int i = 0; i < c; i++) {
+            if(!hasParent[i])
+                roots[rootCount++] = i;
+        }
+        roots = Arrays.copyOf(roots, rootCount);
+        if(random != null)
+            shuffle(roots, random);
+
+        boolean[] visited = new boolean[c];
+        int[] callStack = new int[c];
+        int[][] children = new int[c][];
+        int[] childPos = new int[c];
+        int counter = 0;
+        for(int root : roots) {
+            int depth = 0;
+            callStack[depth++] = root;
+            visited[root] = true;
+            children[root] = childrenOf(offsets, edges, root, random);
+            if(random == null)
+                labels[root * pairs * 2] = counter++;
+            while(depth > 0) {
+                int v = callStack[depth - 1];
+                if(childPos[v] < children[v].length) {
+                    int w = children[v][childPos[v]++];
+                    if(!visited[w]) {
+                        visited[w] = true;
+                        children[w] = childrenOf(offsets, edges, w, random);
+                        if(random == null)
+                            labels[w * pairs * 2] = counter++;
+                        callStack[depth++] = w;
+                    }
+                } else {
+                    depth--;
+                    int base = (v * pairs + pair) * 2;
+                    if(random == null) {
+                        labels[base + 1] = counter;
+                    } else {
+                        int rank = counter++;
+                        int min = rank;
+                        for(int w : children[v])
+                            min = Math.min(min, labels[(w * pairs + pair) * 2]);
+                        labels[base] = min;
+                        labels[base + 1] = rank;
+                    }
+                    children[v] = null;
+                }
+            }
+        }
+    }
+
+    private static int[] childrenOf(int[] offsets, int[] edges, int v, Random random) {
+        int[] ret = Arrays.copyOfRange(edges, offsets[v], offsets[v + 1]);
+        if(random != null)
+            shuffle(ret, random);
+        return ret;
+    }
+
+    private static void shuffle(int[] values, Random random) {
+        for(int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = values[i];
+            values[i] = values[j];
+            values[j] = t;
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.snc.secres.tool.passive.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.snc.secres.tool.passive.index.ClassPathScan.Call;
+import com.snc.secres.tool.passive.index.ClassPathScan.ScannedClass;
+import com.snc.secres.tool.passive.index.ClassPathScan.Targets;
+
+/*
+ * The methods on a class path that call one of a set of target methods, found by reading the class files 
+ * directly (see ClassPathScan) instead of building a view. A call matches a target if it is to a method 
+ * with the same sub-signature declared by the target's class or one of its subtypes as the class file names
+ * the class the method is looked up in rather than the one declaring it. A virtual or interface call also 
+ * matches a target declared by a subtype of the class it is looked up in, as it dispatches to the target when
+ * the target overrides the method, unless the target is static or private.
+ */
+public final class CallSiteScan {
+
+    private final List<String> targets;
+    private final List<CallSite> callSites;
+    private final ClassPathScan classPathScan;
+
+    private CallSiteScan(List<String> targets, List<CallSite> callSites, ClassPathScan classPathScan) {
+        this.targets = targets;
+        this.callSites = callSites;
+        this.classPathScan = classPathScan;
+    }
+
+    /** The target method signatures in SootUp's format. */
+    public List<String> getTargets() {
+        return targets;
+    }
+
+    /** Each calling method and target pair in class path order. */
+    public List<CallSite> getCallSites() {
+        return callSites;
+    }
+
+    public List<CallSite> getCallSites(String target) {
+        return callSites.stream().filter(c -> c.getTarget().equals(target)).collect(Collectors.toList());
+    }
+
+    /** The scan of the class path the calls were found in. */
+    public ClassPathScan getClassPathScan() {
+        return classPathScan;
+    }
+
+    /** The number of classes scanned. */
+    public int getClassCount() {
+        return classPathScan.getClassCount();
+    }
+
+    @Override
+    public String toString() {
+        return "CallSiteScan [targets=" + targets + ", callSites=" + callSites.size() + ", classCount=" + getClassCount() + "]";
+    }
+
+    /* Matches the calls found by the given scan of a class path to the targets of the scan. */
+    public static CallSiteScan makeCallSiteScan(ClassPathScan classPathScan) {
+        Targets targets = classPathScan.getTargets();
+        // Match each call to the targets declared by the class it is looked up in or one of its supertypes and,
+        // for a virtual call, to the targets overriding the method in one of its subtypes
+        Set<CallSite> callSites = new LinkedHashSet<>();
+        for(ScannedClass c : classPathScan.getClasses().values()) {
+            for(Call call : c.calls) {
+                Set<String> supertypes = classPathScan.supertypesOf(call.owner);
+                for(String owner : targets.owners.get(call.subSignature)) {
+                    if(supertypes.contains(owner) || (call.virtual && isVirtual(classPathScan, owner, call.subSignature) 
+                            && classPathScan.supertypesOf(owner).contains(call.owner)))
+                        callSites.add(new CallSite(c.name, call.caller, "<" + owner + ":" + call.subSignature + ">"));
+                }
+            }
+        }
+        return new CallSiteScan(Collections.unmodifiableList(new ArrayList<>(targets.sigs)), 
+                Collections.unmodifiableList(new ArrayList<>(callSites)), classPathScan);
+    }
+
+    // A target whose class is not on the class path is assumed to be virtual
+    private static boolean isVirtual(ClassPathScan classPathScan, String owner, String subSignature) {
+        ScannedClass c = classPathScan.getClasses().get(owner);
+        return c == null || !c.nonVirtualTargets.contains(subSignature);
+    }
+
+    public static final class CallSite {
+
+        private final String className;
+        private final String caller;
+        private final String target;
+
+        public CallSite(String className, String caller, String target) {
+            this.className = className;
+            this.caller = caller;
+            this.target = target;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        /** The signature of the calling method in SootUp's format. */
+        public String getCaller() {
+            return caller;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((caller == null) ? 0 : caller.hashCode());
+            result = prime * result + ((target == null) ? 0 : target.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            CallSite other = (CallSite) obj;
+            if (caller == null) {
+                if (other.caller != null)
+                    return false;
+            } else if (!caller.equals(other.caller))
+                return false;
+            if (target == null) {
+                if (other.target != null)
+                    return false;
+            } else if (!target.equals(other.target))
+                return false;
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return caller + " -> " + target;
+        }
+
+    }
+
+}
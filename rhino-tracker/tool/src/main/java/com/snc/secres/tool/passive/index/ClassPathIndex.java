@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.snc.secres.tool.passive.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.snc.secres.tool.common.io.FileHelpers;
+
+/*
+ * A snapshot of the classes on a class path that is sufficient to build the type hierarchy without 
+ * resolving the classes through SootUp. Each jar on the class path is indexed into its own file in
+ * the index directory named after the SHA-256 hash of the jar's content. As such, an index file is 
+ * only ever created once for a given jar and is reused for every run until the jar changes. Class 
+ * directories are cheap to scan and change often so they are indexed on every run.
+ * 
+ * The index mirrors the way JavaClassPathAnalysisInputLocation finds classes so the resulting type
+ * hierarchy is the same as the one built from the view. If the class path contains an entry that
+ * JavaClassPathAnalysisInputLocation handles differently than a plain directory or jar then no 
+ * index is created.
+ */
+public class ClassPathIndex {
+
+    private static final String CN = ClassPathIndex.class.getSimpleName();
+    private static final int MAGIC = 0x52544349;
+    private static final int VERSION = 1;
+    private static final String INDEX_FILE_EXT = ".idx";
+    static final String CLASS_FILE_EXT = ".class";
+    private static final String MODULE_INFO = "module-info.class";
+
+    private final List<Path> entries;
+    private final Map<String,IndexedClass> classes;
+
+    private ClassPathIndex(List<Path> entries, Map<String,IndexedClass> classes) {
+        this.entries = entries;
+        this.classes = classes;
+    }
+
+    public List<Path> getEntries() {
+        return entries;
+    }
+
+    /** All indexed classes in class path order. */
+    public Collection<IndexedClass> getClasses() {
+        return classes.values();
+    }
+
+    /** Returns the first class with the given internal name on the class path or null. */
+    public IndexedClass getClass(String internalName) {
+        return classes.get(internalName);
+    }
+
+    public int size() {
+        return classes.size();
+    }
+
+    /** Returns an index of only the classes in the slice, which must be of the same class path. */
+    public ClassPathIndex slice(ClassPathSlice slice) {
+        Map<String,IndexedClass> sliced = new LinkedHashMap<>();
+        for(IndexedClass c : classes.values()) {
+            if(slice.contains(c.getName().replace('/', '.')))
+                sliced.put(c.getName(), c);
+        }
+        return new ClassPathIndex(entries, Collections.unmodifiableMap(sliced));
+    }
+
+    /** Returns an index of the class path of this index followed by the class path of the other. */
+    public ClassPathIndex append(ClassPathIndex other) {
+        List<Path> appendedEntries = new ArrayList<>(entries);
+        appendedEntries.addAll(other.entries);
+        Map<String,IndexedClass> appended = new LinkedHashMap<>(classes);
+        for(IndexedClass c : other.classes.values())
+            appended.putIfAbsent(c.getName(), c);
+        return new ClassPathIndex(Collections.unmodifiableList(appendedEntries), Collections.unmodifiableMap(appended));
+    }
+
+    @Override
+    public String toString() {
+        return "ClassPathIndex [entries=" + entries + ", classes=" + classes.size() + "]";
+    }
+
+    /*
+     * Loads the index of the given class path, creating the index files of any jars that have not 
+     * been seen before in parallel. Returns null if the class path cannot be indexed.
+     */
+    public static ClassPathIndex makeClassPathIndex(String classPath, Path indexDir) {
+        List<Path> entries;
+        try {
+            entries = explode(classPath);
+        } catch(Exception e) {
+            System.err.println(CN + ": Failed to parse the class path '" + classPath + "'.\n\n");
+            e.printStackTrace();
+            return null;
+        }
+
+        for(Path entry : entries) {
+            if(Files.exists(entry) && !Files.isDirectory(entry) && !isJar(entry)) {
+                System.err.println(CN + ": Unsupported class path entry '" + entry + "'. Only directories and jars can be indexed.");
+                return null;
+            }
+        }
+
+        try {
+            FileHelpers.processDirectory(indexDir, true, false);
+        } catch(Exception e) {
+            System.err.println(CN + ": Failed to create the class path index directory '" + indexDir + "'.\n\n");
+            e.printStackTrace();
+            return null;
+        }
+
+        List<List<IndexedClass>> indexedEntries;
+        try {
+            indexedEntries = entries.parallelStream().map(entry -> {
+                try {
+                    if(Files.isDirectory(entry))
+                        return indexDirectory(entry);
+                    else if(Files.exists(entry))
+                        return loadJarIndex(entry, indexDir);
+                    return Collections.<IndexedClass>emptyList();
+                } catch(IOException e) {
+                    throw new UncheckedIOException("Failed to index '" + entry + "'", e);
+                }
+            }).collect(Collectors.toList());
+        } catch(Exception e) {
+            System.err.println(CN + ": Failed to index the class path '" + classPath + "'.\n\n");
+            e.printStackTrace();
+            return null;
+        }
+
+        // The first class found on the class path shadows all later ones
+        Map<String,IndexedClass> classes = new LinkedHashMap<>();
+        for(List<IndexedClass> indexedEntry : indexedEntries) {
+            for(IndexedClass c : indexedEntry) {
+                classes.putIfAbsent(c.getName(), c);
+            }
+        }
+        return new ClassPathIndex(Collections.unmodifiableList(entries), Collections.unmodifiableMap(classes));
+    }
+
+    private static List<IndexedClass> loadJarIndex(Path jar, Path indexDir) throws IOException {
+        String hash;
+        try {
+            hash = FileHelpers.bytesToHex(FileHelpers.getHashOfFile("SHA-256", jar));
+        } catch(Exception e) {
+            throw new IOException("Failed to hash the jar.", e);
+        }
+        Path indexFile = indexDir.resolve(hash + INDEX_FILE_EXT);
+        if(Files.isRegularFile(indexFile)) {
+            try {
+                return readIndexFile(indexFile);
+            } catch(IOException e) {
+                System.err.println(CN + ": Failed to read the index file '" + indexFile + "' for '" + jar + "'. Recreating the index file.");
+            }
+        }
+        List<IndexedClass> ret = indexJar(jar);
+        writeIndexFile(indexFile, ret);
+        return ret;
+    }
+
+    private static List<IndexedClass> indexJar(Path jar) throws IOException {
+        List<IndexedClass> ret = new ArrayList<>();
+        try(ZipFile zip = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> it = zip.entries();
+            while(it.hasMoreElements()) {
+                ZipEntry entry = it.nextElement();
+                String name = entry.getName();
+                if(entry.isDirectory() || !isClassFile(name))
+                    continue;
+                try(InputStream in = zip.getInputStream(entry)) {
+                    addClass(ret, name.startsWith("/") ? name.substring(1) : name, in.readAllBytes());
+                }
+            }
+        }
+        return ret;
+    }
+
+    private static List<IndexedClass> indexDirectory(Path dir) throws IOException {
+        List<IndexedClass> ret = new ArrayList<>();
+        try(Stream<Path> walk = Files.walk(dir)) {
+            for(Path p : (Iterable<Path>)walk::iterator) {
+                if(!isClassFile(p.toString()) || Files.isDirectory(p))
+                    continue;
+                addClass(ret, dir.relativize(p).toString().replace(File.separatorChar, '/'), Files.readAllBytes(p));
+            }
+        }
+        return ret;
+    }
+
+    /*
+     * SootUp derives the name of a class from its path and drops the class if the name does not
+     * match the one in the class file (e.g. for classes under META-INF/versions) or if the class
+     * file cannot be read. The same is done here.
+     */
+    private static void addClass(List<IndexedClass> classes, String path, byte[] classFile) {
+        String name = path.substring(0, path.length() - CLASS_FILE_EXT.length());
+        IndexedClass c;
+        try {
+            c = IndexedClass.read(classFile);
+        } catch(Exception e) {
+            return;
+        }
+        if(c.getName().replace('/', '.').equals(name.replace('/', '.')))
+            classes.add(c);
+    }
+
+    private static List<IndexedClass> readIndexFile(Path indexFile) throws IOException {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if(in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("Unsupported index file format.");
+            int size = in.readInt();
+            List<IndexedClass> ret = new ArrayList<>(size);
+            for(int i = 0; i < size; i++)
+                ret.add(IndexedClass.read(in));
+            return ret;
+        }
+    }
+
+    private static void writeIndexFile(Path indexFile, List<IndexedClass> classes) throws IOException {
+        // Write to a temp file first so a concurrent or interrupted run never sees a partial index
+        Path tempFile = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+        try {
+            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(classes.size());
+                for(IndexedClass c : classes)
+                    c.write(out);
+            }
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    static boolean isClassFile(String name) {
+        return name.regionMatches(true, name.length() - CLASS_FILE_EXT.length(), CLASS_FILE_EXT, 0, CLASS_FILE_EXT.length()) 
+                && !name.endsWith(MODULE_INFO);
+    }
+
+    static boolean isJar(Path p) {
+        String name = p.toString();
+        return name.regionMatches(true, name.length() - 4, ".jar", 0, 4);
+    }
+
+    // Same as JavaClassPathAnalysisInputLocation.explode
+    static List<Path> explode(String classPath) throws IOException {
+        List<Path> ret = new ArrayList<>();
+        for(String entry : classPath.split("(?<!\\\\)" + Pattern.quote(File.pathSeparator))) {
+            if(entry.endsWith("*")) {
+                try(DirectoryStream<Path> paths = Files.newDirectoryStream(Paths.get(entry.substring(0, entry.indexOf("*"))), "*.{jar,JAR}")) {
+                    for(Path p : paths)
+                        ret.add(p);
+                }
+            } else {
+                ret.add(Paths.get(entry));
+            }
+        }
+        return ret.stream().map(Path::normalize).distinct().collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.snc.secres.tool.passive.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import sootup.core.signatures.MethodSignature;
+
+/*
+ * A single pass over the class files of a class path that reads what CallSiteScan and ClassPathSlice need 
+ * from each class: its supertypes, the calls its code makes to a set of target methods and, if dependencies
+ * are requested, the classes it names and the types it invokes methods on. Only the header, constant pool,
+ * and member declarations of a class are read unless the constant pool holds a method reference with the 
+ * name of a target, which is rarely the case, and only then is the code of the class read. The entries of 
+ * the class path are scanned in parallel and, as with ClassPathIndex, the first class found on the class 
+ * path shadows all later ones. Classes are named in their dotted form (i.e. java.lang.Object).
+ */
+public final class ClassPathScan {
+
+    private static final String CN = ClassPathScan.class.getSimpleName();
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+
+    private final Targets targets;
+    private final Map<String,ScannedClass> classes;
+    private final boolean dependencies;
+
+    private ClassPathScan(Targets targets, Map<String,ScannedClass> classes, boolean dependencies) {
+        this.targets = targets;
+        this.classes = classes;
+        this.dependencies = dependencies;
+    }
+
+    /** The number of classes scanned. */
+    public int getClassCount() {
+        return classes.size();
+    }
+
+    /** True if the dependencies of each class were read, as ClassPathSlice requires. */
+    public boolean hasDependencies() {
+        return dependencies;
+    }
+
+    Targets getTargets() {
+        return targets;
+    }
+
+    /** The scanned classes in class path order. */
+    Map<String,ScannedClass> getClasses() {
+        return classes;
+    }
+
+    /** The class and all its supertypes on the class path. */
+    Set<String> supertypesOf(String name) {
+        Set<String> ret = new LinkedHashSet<>();
+        Deque<String> toVisit = new ArrayDeque<>();
+        toVisit.add(name);
+        while(!toVisit.isEmpty()) {
+            String cur = toVisit.poll();
+            if(ret.add(cur)) {
+                ScannedClass c = classes.get(cur);
+                if(c != null)
+                    toVisit.addAll(c.supertypes);
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "ClassPathScan [targets=" + targets.sigs + ", classCount=" + classes.size() + ", dependencies=" + dependencies + "]";
+    }
+
+    /*
+     * Scans the given class path for calls to the target methods and, if dependencies is true, for the 
+     * dependencies of each class. Returns null if the class path cannot be scanned.
+     */
+    public static ClassPathScan makeClassPathScan(String classPath, Collection<MethodSignature> targetMethodSignatures, boolean dependencies) {
+        List<Path> entries;
+        try {
+            entries = ClassPathIndex.explode(classPath);
+        } catch(Exception e) {
+            System.err.println(CN + ": Failed to parse the class path '" + classPath + "'.\n\n");
+            e.printStackTrace();
+            return null;
+        }
+
+        Targets targets = new Targets(targetMethodSignatures);
+        List<Map<String,ScannedClass>> scannedEntries;
+        try {
+            scannedEntries = entries.parallelStream().map(entry -> {
+                try {
+                    if(Files.isDirectory(entry))
+                        return scanDirectory(entry, targets, dependencies);
+                    else if(Files.exists(entry) && ClassPathIndex.isJar(entry))
+                        return scanJar(entry, targets, dependencies);
+                    return Collections.<String,ScannedClass>emptyMap();
+                } catch(IOException e) {
+                    throw new UncheckedIOException("Failed to scan '" + entry + "'", e);
+                }
+            }).collect(Collectors.toList());
+        } catch(Exception e) {
+            System.err.println(CN + ": Failed to scan the class path '" + classPath + "'.\n\n");
+            e.printStackTrace();
+            return null;
+        }
+
+        // The first class found on the class path shadows all later ones
+        Map<String,ScannedClass> classes = new LinkedHashMap<>();
+        for(Map<String,ScannedClass> scannedEntry : scannedEntries) {
+            for(Map.Entry<String,ScannedClass> e : scannedEntry.entrySet()) {
+                classes.putIfAbsent(e.getKey(), e.getValue());
+            }
+        }
+        return new ClassPathScan(targets, Collections.unmodifiableMap(classes), dependencies);
+    }
+
+    private static Map<String,ScannedClass> scanJar(Path jar, Targets targets, boolean dependencies) throws IOException {
+        Map<String,ScannedClass> ret = new LinkedHashMap<>();
+        try(ZipFile zip = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> it = zip.entries();
+            while(it.hasMoreElements()) {
+                ZipEntry entry = it.nextElement();
+                String name = entry.getName();
+                if(entry.isDirectory() || !ClassPathIndex.isClassFile(name))
+                    continue;
+                try(InputStream in = zip.getInputStream(entry)) {
+                    scanClass(ret, name.startsWith("/") ? name.substring(1) : name, in.readAllBytes(), targets, dependencies);
+                }
+            }
+        }
+        return ret;
+    }
+
+    private static Map<String,ScannedClass> scanDirectory(Path dir, Targets targets, boolean dependencies) throws IOException {
+        Map<String,ScannedClass> ret = new LinkedHashMap<>();
+        try(Stream<Path> walk = Files.walk(dir)) {
+            for(Path p : (Iterable<Path>)walk::iterator) {
+                if(!ClassPathIndex.isClassFile(p.toString()) || Files.isDirectory(p))
+                    continue;
+                scanClass(ret, dir.relativize(p).toString().replace(File.separatorChar, '/'), Files.readAllBytes(p), targets, dependencies);
+            }
+        }
+        return ret;
+    }
+
+    // Classes SootUp would drop (see ClassPathIndex.addClass) are dropped here as well
+    private static void scanClass(Map<String,ScannedClass> classes, String path, byte[] classFile, Targets targets, boolean dependencies) {
+        String name = path.substring(0, path.length() - ClassPathIndex.CLASS_FILE_EXT.length()).replace('/', '.');
+        try {
+            ClassReader reader = new ClassReader(classFile);
+            if(!reader.getClassName().replace('/', '.').equals(name))
+                return;
+            List<String> supertypes = new ArrayList<>();
+            if(reader.getSuperName() != null)
+                supertypes.add(reader.getSuperName().replace('/', '.'));
+            for(String i : reader.getInterfaces())
+                supertypes.add(i.replace('/', '.'));
+            Set<String> references = dependencies ? new HashSet<>(supertypes) : null;
+            Set<String> receivers = dependencies ? new HashSet<>() : null;
+            boolean readCode = scanConstantPool(reader, targets, references, receivers);
+            boolean declaresTarget = targets.classes.contains(name);
+            Set<Call> calls = new LinkedHashSet<>();
+            Set<String> nonVirtualTargets = new HashSet<>();
+            if(dependencies || readCode || declaresTarget) {
+                reader.accept(new ClassVisitor(Opcodes.ASM9) {
+                    @Override
+                    public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+                        if(references != null)
+                            addDescriptor(descriptor, references);
+                        return null;
+                    }
+
+                    @Override
+                    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                        if(references != null)
+                            addDescriptor(descriptor, references);
+                        // Targets calls cannot dispatch to from a subtype
+                        if(declaresTarget && targets.names.contains(name) && (name.startsWith("<") 
+                                || (access & (Opcodes.ACC_STATIC | Opcodes.ACC_PRIVATE)) != 0)) {
+                            String subSignature = toSubSignature(name, descriptor);
+                            if(targets.owners.containsKey(subSignature))
+                                nonVirtualTargets.add(subSignature);
+                        }
+                        return readCode ? new CallVisitor(reader.getClassName().replace('/', '.'), name, descriptor, targets, calls) : null;
+                    }
+                }, (readCode ? 0 : ClassReader.SKIP_CODE) | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            }
+            if(references != null)
+                references.remove(name);
+            classes.putIfAbsent(name, new ScannedClass(name, supertypes, 
+                    references == null ? Collections.emptyList() : new ArrayList<>(references), 
+                    receivers == null ? Collections.emptyList() : new ArrayList<>(receivers), 
+                    new ArrayList<>(calls), nonVirtualTargets));
+        } catch(Exception e) {
+            return;
+        }
+    }
+
+    /*
+     * Adds the classes named in the constant pool to references and the owners of every method referenced
+     * other than a constructor to receivers, unless they are null. Returns true if the constant pool holds 
+     * a method reference with the name of a target.
+     */
+    private static boolean scanConstantPool(ClassReader reader, Targets targets, Set<String> references, Set<String> receivers) {
+        boolean ret = false;
+        char[] buf = new char[reader.getMaxStringLength()];
+        for(int i = 1; i < reader.getItemCount(); i++) {
+            int offset = reader.getItem(i);
+            // The second slot of a long or double has no offset
+            if(offset == 0)
+                continue;
+            switch(reader.readByte(offset - 1)) {
+                case CONSTANT_CLASS:
+                    if(references != null) {
+                        String name = reader.readUTF8(offset, buf);
+                        if(name.startsWith("["))
+                            addDescriptor(name, references);
+                        else
+                            references.add(name.replace('/', '.'));
+                    }
+                    break;
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                    String methodName = reader.readUTF8(reader.getItem(reader.readUnsignedShort(offset + 2)), buf);
+                    if(targets.names.contains(methodName))
+                        ret = true;
+                    if(receivers != null) {
+                        String owner = reader.readClass(offset, buf);
+                        if(!owner.startsWith("[") && !methodName.equals("<init>"))
+                            receivers.add(owner.replace('/', '.'));
+                    }
+                    break;
+                case CONSTANT_NAME_AND_TYPE:
+                    if(references != null)
+                        addDescriptor(reader.readUTF8(offset + 2, buf), references);
+                    break;
+                case CONSTANT_METHOD_TYPE:
+                    if(references != null)
+                        addDescriptor(reader.readUTF8(offset, buf), references);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return ret;
+    }
+
+    private static void addDescriptor(String descriptor, Set<String> references) {
+        if(descriptor.startsWith("(")) {
+            for(Type t : Type.getArgumentTypes(descriptor))
+                addType(t, references);
+            addType(Type.getReturnType(descriptor), references);
+        } else {
+            addType(Type.getType(descriptor), references);
+        }
+    }
+
+    private static void addType(Type t, Set<String> references) {
+        if(t.getSort() == Type.ARRAY)
+            t = t.getElementType();
+        if(t.getSort() == Type.OBJECT)
+            references.add(t.getClassName());
+    }
+
+    // The sub-signature part of MethodSignature.toString (i.e. " void foo(int,java.lang.String)")
+    static String toSubSignature(String name, String descriptor) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(' ').append(Type.getReturnType(descriptor).getClassName()).append(' ').append(name).append('(');
+        Type[] args = Type.getArgumentTypes(descriptor);
+        for(int i = 0; i < args.length; i++) {
+            if(i > 0)
+                sb.append(',');
+            sb.append(args[i].getClassName());
+        }
+        return sb.append(')').toString();
+    }
+
+    // Collects the calls of a method to a method with the name and sub-signature of a target
+    private static final class CallVisitor extends MethodVisitor {
+
+        private final String caller;
+        private final Targets targets;
+        private final Set<Call> calls;
+
+        private CallVisitor(String className, String name, String descriptor, Targets targets, Set<Call> calls) {
+            super(Opcodes.ASM9);
+            this.caller = "<" + className + ":" + toSubSignature(name, descriptor) + ">";
+            this.targets = targets;
+            this.calls = calls;
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            add(owner, name, descriptor, opcode == Opcodes.INVOKEVIRTUAL || opcode == Opcodes.INVOKEINTERFACE);
+        }
+
+        // Method references to a target (i.e. Context::evaluateString)
+        @Override
+        public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+            for(Object arg : bootstrapMethodArguments) {
+                if(arg instanceof Handle) {
+                    Handle h = (Handle)arg;
+                    add(h.getOwner(), h.getName(), h.getDesc(), h.getTag() == Opcodes.H_INVOKEVIRTUAL || h.getTag() == Opcodes.H_INVOKEINTERFACE);
+                }
+            }
+        }
+
+        private void add(String owner, String name, String descriptor, boolean virtual) {
+            if(targets.names.contains(name)) {
+                String subSignature = toSubSignature(name, descriptor);
+                if(targets.owners.containsKey(subSignature))
+                    calls.add(new Call(caller, owner.replace('/', '.'), subSignature, virtual));
+            }
+        }
+
+    }
+
+    static final class Targets {
+
+        // The method names, the declaring classes of each sub-signature, all declaring classes, and the signatures of the targets
+        final Set<String> names;
+        final Map<String,Set<String>> owners;
+        final Set<String> classes;
+        final Set<String> sigs;
+
+        private Targets(Collection<MethodSignature> methodSignatures) {
+            this.names = new HashSet<>();
+            this.owners = new HashMap<>();
+            this.classes = new HashSet<>();
+            this.sigs = new LinkedHashSet<>();
+            for(MethodSignature m : methodSignatures) {
+                String sig = m.toString();
+                names.add(m.getName());
+                owners.computeIfAbsent(sig.substring(sig.indexOf(':') + 1, sig.length() - 1), k -> new LinkedHashSet<>())
+                    .add(m.getDeclClassType().getFullyQualifiedName());
+                classes.add(m.getDeclClassType().getFullyQualifiedName());
+                sigs.add(sig);
+            }
+        }
+
+    }
+
+    static final class ScannedClass {
+
+        final String name;
+        final List<String> supertypes;
+        // Empty unless the dependencies were scanned
+        final List<String> references;
+        final List<String> receivers;
+        final List<Call> calls;
+        final Set<String> nonVirtualTargets;
+
+        private ScannedClass(String name, List<String> supertypes, List<String> references, List<String> receivers, 
+                List<Call> calls, Set<String> nonVirtualTargets) {
+            this.name = name;
+            this.supertypes = supertypes;
+            this.references = references;
+            this.receivers = receivers;
+            this.calls = calls;
+            this.nonVirtualTargets = nonVirtualTargets;
+        }
+
+    }
+
+    static final class Call {
+
+        final String caller;
+        final String owner;
+        final String subSignature;
+        final boolean virtual;
+
+        private Call(String caller, String owner, String subSignature, boolean virtual) {
+            this.caller = caller;
+            this.owner = owner;
+            this.subSignature = subSignature;
+            this.virtual = virtual;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(caller, owner, subSignature, virtual);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Call))
+                return false;
+            Call other = (Call) obj;
+            return caller.equals(other.caller) && owner.equals(other.owner) && subSignature.equals(other.subSignature) 
+                    && virtual == other.virtual;
+        }
+
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.snc.secres.tool.passive.index;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.snc.secres.tool.passive.index.ClassPathScan.ScannedClass;
+
+/*
+ * The classes on a class path that the code of a set of root classes depends on, directly or through other
+ * classes on the class path. A class depends on its supertypes and on every class named in its constant pool
+ * or in the descriptors of its fields and methods, which covers every class its code can call, instantiate,
+ * or access a field of. The dependencies of each class are read by ClassPathScan. Classes are named in their
+ * dotted form (i.e. java.lang.Object).
+ * 
+ * Subtypes of a class are not dependencies of it, but a method invoked on a type can dispatch to any subtype
+ * that overrides it, so every subtype of a type a class in the slice invokes a method on is in the slice as well.
+ * The exception is java.lang.Object, every class being a subtype of it, so the overrides of its methods are
+ * only in the slice when their class is reached some other way.
+ */
+public final class ClassPathSlice {
+
+    private final Set<String> classes;
+    private final int classCount;
+
+    private ClassPathSlice(Set<String> classes, int classCount) {
+        this.classes = classes;
+        this.classCount = classCount;
+    }
+
+    /** The classes in the slice in the order they were reached from the roots. */
+    public Set<String> getClasses() {
+        return classes;
+    }
+
+    public boolean contains(String className) {
+        return classes.contains(className);
+    }
+
+    public int size() {
+        return classes.size();
+    }
+
+    /** The number of classes on the class path. */
+    public int getClassCount() {
+        return classCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ClassPathSlice [classes=" + classes.size() + ", classCount=" + classCount + "]";
+    }
+
+    /*
+     * Computes the dependency closure of the root classes on the class path of the given scan, which must
+     * have read the dependencies of each class. Every subtype of a class in rootSupertypes on the class path
+     * is a root as well. Roots that are not on the class path are ignored.
+     */
+    public static ClassPathSlice makeClassPathSlice(ClassPathScan classPathScan, Collection<String> rootClasses, Collection<String> rootSupertypes) {
+        if(!classPathScan.hasDependencies())
+            throw new IllegalArgumentException("The scan of the class path did not read the dependencies of its classes.");
+        Map<String,ScannedClass> classes = classPathScan.getClasses();
+        Map<String,List<String>> subtypes = new HashMap<>();
+        for(ScannedClass c : classes.values()) {
+            for(String supertype : c.supertypes)
+                subtypes.computeIfAbsent(supertype, k -> new ArrayList<>()).add(c.name);
+        }
+
+        Deque<String> toVisit = new ArrayDeque<>(rootClasses);
+        if(!rootSupertypes.isEmpty()) {
+            Set<String> supertypes = new HashSet<>(rootSupertypes);
+            for(String name : classes.keySet()) {
+                if(classPathScan.supertypesOf(name).stream().anyMatch(supertypes::contains))
+                    toVisit.add(name);
+            }
+        }
+        Set<String> slice = new LinkedHashSet<>();
+        Set<String> receivers = new HashSet<>();
+        receivers.add("java.lang.Object");
+        while(!toVisit.isEmpty()) {
+            String cur = toVisit.poll();
+            ScannedClass c = classes.get(cur);
+            if(c != null && slice.add(cur)) {
+                toVisit.addAll(c.references);
+                for(String receiver : c.receivers) {
+                    if(receivers.add(receiver))
+                        toVisit.addAll(subtypesOf(subtypes, receiver));
+                }
+            }
+        }
+        return new ClassPathSlice(Collections.unmodifiableSet(slice), classes.size());
+    }
+
+    private static Set<String> subtypesOf(Map<String,List<String>> subtypes, String name) {
+        Set<String> ret = new LinkedHashSet<>();
+        Deque<String> toVisit = new ArrayDeque<>(subtypes.getOrDefault(name, Collections.emptyList()));
+        while(!toVisit.isEmpty()) {
+            String cur = toVisit.poll();
+            if(ret.add(cur))
+                toVisit.addAll(subtypes.getOrDefault(cur, Collections.emptyList()));
+        }
+        return ret;
+    }
+
+}
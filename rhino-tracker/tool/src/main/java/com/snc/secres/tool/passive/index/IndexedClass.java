@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.snc.secres.tool.passive.index;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/*
+ * The part of a class file needed to answer type hierarchy queries. All class names are stored
+ * in their internal form (i.e. java/lang/Object) as they appear in the class file.
+ */
+public final class IndexedClass {
+
+    private final String name;
+    private final String superName;
+    private final List<String> interfaces;
+    private final int access;
+    private final List<IndexedMethod> methods;
+
+    public IndexedClass(String name, String superName, List<String> interfaces, int access, List<IndexedMethod> methods) {
+        this.name = name;
+        this.superName = superName;
+        this.interfaces = interfaces;
+        this.access = access;
+        this.methods = methods;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Null for java/lang/Object and module-info. */
+    public String getSuperName() {
+        return superName;
+    }
+
+    public List<String> getInterfaces() {
+        return interfaces;
+    }
+
+    public int getAccess() {
+        return access;
+    }
+
+    public List<IndexedMethod> getMethods() {
+        return methods;
+    }
+
+    public boolean isInterface() {
+        return (access & Opcodes.ACC_INTERFACE) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexedClass [name=" + name + ", superName=" + superName + ", interfaces=" + interfaces + ", access=" + access 
+                + ", methods=" + methods + "]";
+    }
+
+    /*
+     * Reads the header and method declarations of a class file. Code, debug information and
+     * frames are skipped as they are not needed for the index.
+     */
+    public static IndexedClass read(byte[] classFile) {
+        ClassReader reader = new ClassReader(classFile);
+        List<IndexedMethod> methods = new ArrayList<>();
+        reader.accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                methods.add(new IndexedMethod(name, descriptor, access));
+                return null;
+            }
+        }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        String[] interfaces = reader.getInterfaces();
+        return new IndexedClass(reader.getClassName(), reader.getSuperName(), 
+                interfaces.length == 0 ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(interfaces)), 
+                reader.getAccess(), Collections.unmodifiableList(methods));
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeUTF(name);
+        out.writeBoolean(superName != null);
+        if(superName != null)
+            out.writeUTF(superName);
+        out.writeInt(access);
+        out.writeInt(interfaces.size());
+        for(String i : interfaces)
+            out.writeUTF(i);
+        out.writeInt(methods.size());
+        for(IndexedMethod m : methods) {
+            out.writeUTF(m.name);
+            out.writeUTF(m.descriptor);
+            out.writeInt(m.access);
+        }
+    }
+
+    static IndexedClass read(DataInput in) throws IOException {
+        String name = in.readUTF();
+        String superName = in.readBoolean() ? in.readUTF() : null;
+        int access = in.readInt();
+        int size = in.readInt();
+        List<String> interfaces = new ArrayList<>(size);
+        for(int i = 0; i < size; i++)
+            interfaces.add(in.readUTF());
+        size = in.readInt();
+        List<IndexedMethod> methods = new ArrayList<>(size);
+        for(int i = 0; i < size; i++)
+            methods.add(new IndexedMethod(in.readUTF(), in.readUTF(), in.readInt()));
+        return new IndexedClass(name, superName, Collections.unmodifiableList(interfaces), access, Collections.unmodifiableList(methods));
+    }
+
+    public static final class IndexedMethod {
+
+        private final String name;
+        private final String descriptor;
+        private final int access;
+
+        public IndexedMethod(String name, String descriptor, int access) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.access = access;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescriptor() {
+            return descriptor;
+        }
+
+        public int getAccess() {
+            return access;
+        }
+
+        @Override
+        public String toString() {
+            return name + descriptor;
+        }
+
+    }
+
+}
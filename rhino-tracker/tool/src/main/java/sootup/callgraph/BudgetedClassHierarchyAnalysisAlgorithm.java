@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package sootup.callgraph;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import sootup.core.signatures.MethodSignature;
+import sootup.core.views.View;
+
+/*
+ * A class hierarchy analysis that stops once its CallGraphBudget is exceeded and returns the call graph built so far.
+ * If a CallGraphCheckpoint is given the state of the construction is saved periodically and the construction
+ * resumes from the state loaded into the checkpoint if any.
+ */
+public class BudgetedClassHierarchyAnalysisAlgorithm extends ClassHierarchyAnalysisAlgorithm implements ExtensibleCallGraphAlgorithm {
+
+    private final CallGraphBudget budget;
+    private final CallGraphCheckpoint checkpoint;
+    private MutableCallGraph callGraph;
+    private Deque<MethodSignature> workList;
+    private Set<MethodSignature> processed;
+    private boolean extensible;
+    private boolean extending;
+
+    public BudgetedClassHierarchyAnalysisAlgorithm(@Nonnull View view, @Nonnull CallGraphBudget budget) {
+        this(view, budget, null);
+    }
+
+    public BudgetedClassHierarchyAnalysisAlgorithm(@Nonnull View view, @Nonnull CallGraphBudget budget, CallGraphCheckpoint checkpoint) {
+        super(view);
+        this.budget = budget;
+        this.checkpoint = checkpoint;
+        this.callGraph = null;
+        this.workList = null;
+        this.processed = null;
+        this.extensible = false;
+        this.extending = false;
+    }
+
+    public CallGraphBudget getBudget() {
+        return budget;
+    }
+
+    public CallGraphCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    @Override
+    public void setExtensible(boolean extensible) {
+        this.extensible = extensible;
+    }
+
+    @Override
+    public boolean isExtensible() {
+        return extensible;
+    }
+
+    @Override
+    @Nonnull
+    public CallGraph initialize(@Nonnull List<MethodSignature> entryPoints) {
+        budget.start();
+        if(checkpoint == null) {
+            try {
+                return super.initialize(entryPoints);
+            } catch(CallGraphBudget.ExceededException e) {
+                return callGraph;
+            } finally {
+                callGraph = null;
+            }
+        }
+
+        // Same as constructCompleteCallGraph but the work list and processed methods are kept so they can be saved
+        checkpoint.start();
+        CallGraphCheckpoint.State state = checkpoint.takeResumeState();
+        if(state == null) {
+            callGraph = initializeCallGraph();
+            workList = new ArrayDeque<>(entryPoints);
+            processed = new HashSet<>();
+            addImplicitEdgesOfEntryPoints(entryPoints, callGraph, workList);
+        } else {
+            callGraph = state.callGraph;
+            workList = state.workList;
+            processed = state.processed;
+        }
+        try {
+            processWorkList(view, workList, processed, callGraph);
+            checkpoint.delete();
+            return callGraph;
+        } catch(CallGraphBudget.ExceededException e) {
+            writeCheckpoint();
+            return callGraph;
+        } finally {
+            callGraph = null;
+            workList = null;
+            processed = null;
+        }
+    }
+
+    @Override
+    public synchronized void extend(@Nonnull CallGraphOverlay overlay, @Nonnull Collection<MethodSignature> entryPoints) {
+        if(!extensible)
+            throw new IllegalStateException("The algorithm was not extensible when the call graph was built");
+        extending = true;
+        try {
+            ExtensibleCallGraphAlgorithm.extend(this, overlay, entryPoints);
+        } finally {
+            extending = false;
+        }
+    }
+
+    @Override
+    protected MutableCallGraph initializeCallGraph() {
+        callGraph = super.initializeCallGraph();
+        return callGraph;
+    }
+
+    @Override
+    protected void preProcessingMethod(View view, MethodSignature sourceMethod, @Nonnull Deque<MethodSignature> workList, 
+            @Nonnull MutableCallGraph cg) {
+        if(extending) {
+            super.preProcessingMethod(view, sourceMethod, workList, cg);
+            return;
+        }
+        if(checkpoint != null) {
+            // The method is put back on the work list until it is processed so a resumed construction processes it
+            workList.push(sourceMethod);
+            if(checkpoint.isDue())
+                writeCheckpoint();
+        }
+        if(!budget.isUnlimited())
+            budget.check(cg);
+        if(checkpoint != null)
+            workList.pop();
+        super.preProcessingMethod(view, sourceMethod, workList, cg);
+    }
+
+    private void writeCheckpoint() {
+        checkpoint.write(callGraph, workList, processed, Collections.emptySet(), Collections.emptyList());
+    }
+
+}
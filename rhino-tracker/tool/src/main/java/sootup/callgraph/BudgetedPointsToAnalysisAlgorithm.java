@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package sootup.callgraph;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
+
+import qilin.core.PTA;
+import qilin.core.PTAScene;
+import qilin.core.builder.CallGraphBuilder;
+import qilin.core.builder.callgraph.Edge;
+import qilin.driver.ContextKind;
+import qilin.driver.PTAPattern;
+import qilin.pta.PTAConfig;
+import qilin.pta.tools.CallSiteSensPTA;
+import qilin.pta.tools.ObjectSensPTA;
+import qilin.pta.tools.Spark;
+import qilin.pta.tools.TypeSensPTA;
+import qilin.util.PTAUtils;
+import sootup.core.model.SootClass;
+import sootup.core.model.SootMethod;
+import sootup.core.signatures.MethodSignature;
+import sootup.core.views.View;
+import sootup.java.core.types.JavaClassType;
+
+/*
+ * Builds the call graph from a Qilin points-to analysis so virtual calls are only resolved to the 
+ * types that can actually reach the receiver. The pattern selects the context sensitivity using the 
+ * Qilin notation (e.g. insens, 1c, 2o, 2t, 2o+1h). Only the plain context kinds are supported as the 
+ * specialized approaches (e.g. zipper) run pre-analyses the budget cannot stop. The analysis starts 
+ * from a single main method. Qilin calls the static initializers it finds from a synthetic main so 
+ * these calls are attributed to the main method instead. Once the CallGraphBudget is exceeded the 
+ * analysis stops and the call graph resolved so far is returned. Since a new class can change the 
+ * points-to sets of the whole program, adding a class runs the analysis again from the same main method.
+ */
+public class BudgetedPointsToAnalysisAlgorithm implements CallGraphAlgorithm {
+
+    private final View view;
+    private final PTAPattern pattern;
+    private final CallGraphBudget budget;
+    private MethodSignature mainMethod;
+
+    public BudgetedPointsToAnalysisAlgorithm(@Nonnull View view, @Nonnull String pattern, @Nonnull CallGraphBudget budget) {
+        this.view = view;
+        try {
+            this.pattern = new PTAPattern(pattern);
+        } catch(RuntimeException e) {
+            throw new IllegalArgumentException("Unsupported points-to analysis pattern '" + pattern + "'.", e);
+        }
+        ContextKind kind = this.pattern.getContextKind();
+        if(this.pattern.getApproach() != PTAPattern.Approach.NONE || (kind != ContextKind.INSENS && kind != ContextKind.CALLSITE 
+                && kind != ContextKind.OBJECT && kind != ContextKind.TYPE))
+            throw new IllegalArgumentException("Unsupported points-to analysis pattern '" + pattern + "'.");
+        this.budget = budget;
+        this.mainMethod = null;
+    }
+
+    public CallGraphBudget getBudget() {
+        return budget;
+    }
+
+    @Override
+    @Nonnull
+    public CallGraph initialize() {
+        return initialize(Collections.singletonList(findMainMethod()));
+    }
+
+    /* Same as AbstractCallGraphAlgorithm.findMainMethod. */
+    private MethodSignature findMainMethod() {
+        List<MethodSignature> mainMethods = view.getClasses().stream()
+            .filter(c -> !c.isLibraryClass())
+            .flatMap(c -> c.getMethods().stream())
+            .filter(m -> m.isStatic() && m.getSignature().getSubSignature().toString().equals("void main(java.lang.String[])"))
+            .map(SootMethod::getSignature)
+            .collect(Collectors.toList());
+        if(mainMethods.isEmpty())
+            throw new IllegalStateException("No main method is present in the view. Give the main method as entry point instead.");
+        if(mainMethods.size() > 1)
+            throw new IllegalStateException("There is more than one main method present in the view " + mainMethods 
+                + ". Give the main method as entry point instead.");
+        return mainMethods.get(0);
+    }
+
+    @Override
+    @Nonnull
+    public CallGraph initialize(@Nonnull List<MethodSignature> entryPoints) {
+        if(entryPoints.size() != 1 || !entryPoints.get(0).getSubSignature().toString().equals("void main(java.lang.String[])"))
+            throw new IllegalArgumentException("The points-to analysis requires a single main method as entry point.");
+        mainMethod = entryPoints.get(0);
+
+        // Qilin keeps its configuration in a global so reset it for every construction
+        PTAConfig.reset();
+        PTAConfig.v().getPtaConfig().singleentry = true;
+        PTAConfig.v().getPtaConfig().ptaPattern = pattern;
+
+        budget.start();
+        PTA pta = makePTA(new PTAScene(view, mainMethod.getDeclClassType().getFullyQualifiedName()));
+        try {
+            pta.pureRun();
+        } catch(CallGraphBudget.ExceededException e) {
+            // The call edges found so far are kept by the call graph builder
+        }
+
+        GraphBasedCallGraph cg = new GraphBasedCallGraph();
+        cg.addMethod(mainMethod);
+        for(Edge edge : pta.getCgb().getCICallGraph()) {
+            MethodSignature src = PTAUtils.isFakeMainMethod(edge.src()) ? mainMethod : edge.src().getSignature();
+            MethodSignature tgt = edge.tgt().getSignature();
+            if(tgt.equals(mainMethod) && src.equals(mainMethod))
+                continue;
+            if(!cg.containsMethod(src))
+                cg.addMethod(src);
+            if(!cg.containsMethod(tgt))
+                cg.addMethod(tgt);
+            if(!cg.containsCall(src, tgt))
+                cg.addCall(src, tgt);
+        }
+        return cg;
+    }
+
+    @Override
+    @Nonnull
+    public CallGraph addClass(@Nonnull CallGraph oldCallGraph, @Nonnull JavaClassType classType) {
+        if(mainMethod == null || !oldCallGraph.containsMethod(mainMethod))
+            throw new IllegalArgumentException("The call graph was not built by this points-to analysis.");
+        SootClass clazz = view.getClass(classType).orElseThrow(() -> new IllegalArgumentException("Could not find '" + classType 
+            + "' in the view."));
+        if(clazz.getMethods().stream().allMatch(m -> oldCallGraph.containsMethod(m.getSignature())))
+            return oldCallGraph;
+        return initialize(Collections.singletonList(mainMethod));
+    }
+
+    private PTA makePTA(PTAScene scene) {
+        int k = pattern.getContextDepth();
+        int hk = pattern.getHeapContextDepth();
+        switch(pattern.getContextKind()) {
+            case CALLSITE:
+                return new CallSiteSensPTA(scene, k, hk) {
+                    @Override
+                    protected CallGraphBuilder createCallGraphBuilder() {
+                        return new BudgetedCallGraphBuilder(this);
+                    }
+                };
+            case OBJECT:
+                return new ObjectSensPTA(scene, k, hk) {
+                    @Override
+                    protected CallGraphBuilder createCallGraphBuilder() {
+                        return new BudgetedCallGraphBuilder(this);
+                    }
+                };
+            case TYPE:
+                return new TypeSensPTA(scene, k, hk) {
+                    @Override
+                    protected CallGraphBuilder createCallGraphBuilder() {
+                        return new BudgetedCallGraphBuilder(this);
+                    }
+                };
+            default:
+                return new Spark(scene) {
+                    @Override
+                    protected CallGraphBuilder createCallGraphBuilder() {
+                        return new BudgetedCallGraphBuilder(this);
+                    }
+                };
+        }
+    }
+
+    /* Checks the budget whenever a new call edge is found. Created while the PTA is constructed. */
+    private final class BudgetedCallGraphBuilder extends CallGraphBuilder {
+
+        private final Set<SootMethod> methods;
+
+        private BudgetedCallGraphBuilder(PTA pta) {
+            super(pta);
+            this.methods = new HashSet<>();
+        }
+
+        @Override
+        protected void handleCallEdge(Edge edge) {
+            if(!budget.isUnlimited()) {
+                methods.add(edge.tgt());
+                budget.check(methods.size());
+            }
+            super.handleCallEdge(edge);
+        }
+
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package sootup.callgraph;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Limits on the construction of a call graph. The budget is checked before each method taken off the
+ * work list is processed, or for a points-to analysis whenever a new call edge is found. Once a limit 
+ * is exceeded the construction stops and the call graph built so far is kept, with the methods still 
+ * on the work list added but never expanded. The heap limit is a
+ * percentage of the max heap and is compared to what was left after the most recent collection so 
+ * garbage that has not been collected yet does not count. A limit of 0 means no limit.
+ */
+public class CallGraphBudget {
+
+    private final long maxNanos;
+    private final int maxHeapPercent;
+    private final int maxMethods;
+    private long start;
+    private String exceeded;
+
+    public CallGraphBudget(int maxSeconds, int maxHeapPercent, int maxMethods) {
+        this.maxNanos = TimeUnit.SECONDS.toNanos(Math.max(0, maxSeconds));
+        this.maxHeapPercent = Math.max(0, maxHeapPercent);
+        this.maxMethods = Math.max(0, maxMethods);
+        this.start = 0;
+        this.exceeded = null;
+    }
+
+    public boolean isUnlimited() {
+        return maxNanos == 0 && maxHeapPercent == 0 && maxMethods == 0;
+    }
+
+    /** A description of the limit that stopped the last construction or null if none did. */
+    public String getExceeded() {
+        return exceeded;
+    }
+
+    void start() {
+        start = System.nanoTime();
+        exceeded = null;
+    }
+
+    void check(CallGraph cg) {
+        check(maxMethods > 0 ? cg.getMethodSignatures().size() : 0);
+    }
+
+    void check(int methodCount) {
+        if(maxMethods > 0 && methodCount >= maxMethods) {
+            exceeded = "The call graph reached the limit of " + maxMethods + " methods.";
+        } else if(maxNanos > 0 && System.nanoTime() - start >= maxNanos) {
+            exceeded = "The construction of the call graph reached the limit of " + TimeUnit.NANOSECONDS.toSeconds(maxNanos) + " seconds.";
+        } else if(maxHeapPercent > 0 && isHeapExceeded()) {
+            exceeded = "The heap reached the limit of " + maxHeapPercent + "% of the max heap.";
+        }
+        if(exceeded != null)
+            throw new ExceededException();
+    }
+
+    private boolean isHeapExceeded() {
+        Runtime runtime = Runtime.getRuntime();
+        long limit = runtime.maxMemory() / 100 * maxHeapPercent;
+        // Cheap check first since the heap including garbage is at least as large as the live heap
+        if(runtime.totalMemory() - runtime.freeMemory() < limit)
+            return false;
+        long afterGc = 0;
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if(pool.getType() != MemoryType.HEAP || !pool.isValid())
+                continue;
+            MemoryUsage usage = pool.getCollectionUsage();
+            if(usage != null)
+                afterGc += usage.getUsed();
+        }
+        return afterGc >= limit;
+    }
+
+    /* Unwinds the work list of the call graph algorithm. Carries no stack trace as it is always caught. */
+    static final class ExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private ExceededException() {
+            super(null, null, false, false);
+        }
+    }
+
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package sootup.callgraph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import sootup.core.IdentifierFactory;
+import sootup.core.signatures.MethodSignature;
+import sootup.core.types.ClassType;
+import sootup.core.types.Type;
+
+/*
+ * Periodically saves the state of a call graph construction (the call graph so far, the work list, 
+ * the processed methods, and for RTA the instantiated classes and the calls to classes not yet 
+ * instantiated) so a construction that is killed can be resumed. The state is saved between two
+ * methods taken off the work list, at most once per interval and whenever the CallGraphBudget stops
+ * the construction. The key identifies the construction and a checkpoint is only resumed from if its 
+ * key matches. Only the SHA-256 of the key is stored since the key holds the whole class path and can
+ * be of any length. The checkpoint is deleted once the construction completes.
+ */
+public class CallGraphCheckpoint {
+
+    private static final String CN = CallGraphCheckpoint.class.getSimpleName();
+    private static final int MAGIC = 0x52544350;
+    private static final int VERSION = 2;
+
+    private final Path file;
+    private final long intervalNanos;
+    private final byte[] keyHash;
+    private long lastWrite;
+    private int writes;
+    private State resumeState;
+
+    public CallGraphCheckpoint(Path file, int intervalSeconds, String key) {
+        this.file = file;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(Math.max(1, intervalSeconds));
+        try {
+            this.keyHash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch(NoSuchAlgorithmException e) {
+            // Every JVM is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+        this.lastWrite = 0;
+        this.writes = 0;
+        this.resumeState = null;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /** The number of times the state was saved during the last construction. */
+    public int getWrites() {
+        return writes;
+    }
+
+    /*
+     * Reads the checkpoint file so the next construction resumes from it. Returns false if there is
+     * no checkpoint file or it was written for a different construction.
+     */
+    public boolean load(IdentifierFactory factory) throws IOException {
+        resumeState = null;
+        if(!Files.isRegularFile(file))
+            return false;
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if(in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("Unsupported checkpoint file format.");
+            byte[] hash = new byte[keyHash.length];
+            in.readFully(hash);
+            if(!MessageDigest.isEqual(hash, keyHash))
+                return false;
+
+            Type[] types = new Type[in.readInt()];
+            for(int i = 0; i < types.length; i++)
+                types[i] = factory.getType(in.readUTF());
+            MethodSignature[] methods = new MethodSignature[in.readInt()];
+            for(int i = 0; i < methods.length; i++) {
+                ClassType declClass = (ClassType)types[in.readInt()];
+                String name = in.readUTF();
+                Type returnType = types[in.readInt()];
+                List<Type> paramTypes = new ArrayList<>();
+                for(int j = in.readInt(); j > 0; j--)
+                    paramTypes.add(types[in.readInt()]);
+                methods[i] = factory.getMethodSignature(declClass, name, returnType, paramTypes);
+            }
+
+            State state = new State();
+            state.callGraph = new GraphBasedCallGraph();
+            int[] vertices = new int[in.readInt()];
+            for(int i = 0; i < vertices.length; i++) {
+                vertices[i] = in.readInt();
+                state.callGraph.addMethod(methods[vertices[i]]);
+            }
+            for(int i = 0; i < vertices.length; i++) {
+                for(int j = in.readInt(); j > 0; j--)
+                    state.callGraph.addCall(methods[vertices[i]], methods[in.readInt()]);
+            }
+            state.workList = new ArrayDeque<>();
+            for(int i = in.readInt(); i > 0; i--)
+                state.workList.addLast(methods[in.readInt()]);
+            state.processed = new HashSet<>();
+            for(int i = in.readInt(); i > 0; i--)
+                state.processed.add(methods[in.readInt()]);
+            state.instantiatedClasses = new HashSet<>();
+            for(int i = in.readInt(); i > 0; i--)
+                state.instantiatedClasses.add((ClassType)types[in.readInt()]);
+            state.ignoredCalls = new ArrayList<>();
+            for(int i = in.readInt(); i > 0; i--)
+                state.ignoredCalls.add(new MethodSignature[] {methods[in.readInt()], methods[in.readInt()]});
+            resumeState = state;
+            return true;
+        }
+    }
+
+    void start() {
+        lastWrite = System.nanoTime();
+        writes = 0;
+    }
+
+    /* Returns the state loaded from the checkpoint file once so it is only resumed from once. */
+    State takeResumeState() {
+        State ret = resumeState;
+        resumeState = null;
+        return ret;
+    }
+
+    boolean isDue() {
+        return System.nanoTime() - lastWrite >= intervalNanos;
+    }
+
+    /* A failure to save the state is reported but does not stop the construction. */
+    void write(CallGraph cg, Deque<MethodSignature> workList, Set<MethodSignature> processed, Set<ClassType> instantiatedClasses, 
+            List<MethodSignature[]> ignoredCalls) {
+        lastWrite = System.nanoTime();
+        Path tempFile = null;
+        try {
+            // Write to a temp file first so a run killed while writing never leaves a partial checkpoint
+            tempFile = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                write(out, cg, workList, processed, instantiatedClasses, ignoredCalls);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            writes++;
+        } catch(IOException e) {
+            System.err.println(CN + ": Failed to write the call graph checkpoint '" + file + "'.\n\n");
+            e.printStackTrace();
+        } finally {
+            try {
+                if(tempFile != null)
+                    Files.deleteIfExists(tempFile);
+            } catch(IOException e) {}
+        }
+        // Do not count the time spent writing against the interval
+        lastWrite = System.nanoTime();
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch(IOException e) {
+            System.err.println(CN + ": Failed to delete the call graph checkpoint '" + file + "'.\n\n");
+            e.printStackTrace();
+        }
+    }
+
+    private void write(DataOutputStream out, CallGraph cg, Deque<MethodSignature> workList, Set<MethodSignature> processed, 
+            Set<ClassType> instantiatedClasses, List<MethodSignature[]> ignoredCalls) throws IOException {
+        // Number every method and type once so each is written as a single int after its definition
+        Map<Type,Integer> typeIds = new HashMap<>();
+        Map<MethodSignature,Integer> methodIds = new HashMap<>();
+        List<Type> types = new ArrayList<>();
+        List<MethodSignature> methods = new ArrayList<>();
+        List<MethodSignature> vertices = new ArrayList<>(cg.getMethodSignatures());
+        for(MethodSignature m : vertices) {
+            addMethod(m, methodIds, methods, typeIds, types);
+            for(MethodSignature tgt : cg.callsFrom(m))
+                addMethod(tgt, methodIds, methods, typeIds, types);
+        }
+        for(MethodSignature m : workList)
+            addMethod(m, methodIds, methods, typeIds, types);
+        for(MethodSignature m : processed)
+            addMethod(m, methodIds, methods, typeIds, types);
+        for(ClassType t : instantiatedClasses)
+            addType(t, typeIds, types);
+        for(MethodSignature[] call : ignoredCalls) {
+            addMethod(call[0], methodIds, methods, typeIds, types);
+            addMethod(call[1], methodIds, methods, typeIds, types);
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.write(keyHash);
+        out.writeInt(types.size());
+        for(Type t : types)
+            out.writeUTF(t.toString());
+        out.writeInt(methods.size());
+        for(MethodSignature m : methods) {
+            out.writeInt(typeIds.get(m.getDeclClassType()));
+            out.writeUTF(m.getName());
+            out.writeInt(typeIds.get(m.getType()));
+            out.writeInt(m.getParameterTypes().size());
+            for(Type t : m.getParameterTypes())
+                out.writeInt(typeIds.get(t));
+        }
+        out.writeInt(vertices.size());
+        for(MethodSignature m : vertices)
+            out.writeInt(methodIds.get(m));
+        for(MethodSignature m : vertices) {
+            Set<MethodSignature> targets = cg.callsFrom(m);
+            out.writeInt(targets.size());
+            for(MethodSignature tgt : targets)
+                out.writeInt(methodIds.get(tgt));
+        }
+        out.writeInt(workList.size());
+        for(MethodSignature m : workList)
+            out.writeInt(methodIds.get(m));
+        out.writeInt(processed.size());
+        for(MethodSignature m : processed)
+            out.writeInt(methodIds.get(m));
+        out.writeInt(instantiatedClasses.size());
+        for(ClassType t : instantiatedClasses)
+            out.writeInt(typeIds.get(t));
+        out.writeInt(ignoredCalls.size());
+        for(MethodSignature[] call : ignoredCalls) {
+            out.writeInt(methodIds.get(call[0]));
+            out.writeInt(methodIds.get(call[1]));
+        }
+    }
+
+    private static void addMethod(MethodSignature m, Map<MethodSignature,Integer> methodIds, List<MethodSignature> methods, 
+            Map<Type,Integer> typeIds, List<Type> types) {
+        if(methodIds.containsKey(m))
+            return;
+        addType(m.getDeclClassType(), typeIds, types);
+        addType(m.getType(), typeIds, types);
+        for(Type t : m.getParameterTypes())
+            addType(t, typeIds, types);
+        methodIds.put(m, methods.size());
+        methods.add(m);
+    }
+
+    private static void addType(Type t, Map<Type,Integer> typeIds, List<Type> types) {
+        if(typeIds.putIfAbsent(t, types.size()) == null)
+            types.add(t);
+    }
+
+    /* The state of a construction read from a checkpoint file. */
+    static final class State {
+        GraphBasedCallGraph callGraph;
+        Deque<MethodSignature> workList;
+        Set<MethodSignature> processed;
+        Set<ClassType> instantiatedClasses;
+        List<MethodSignature[]> ignoredCalls;
+    }
+
+}
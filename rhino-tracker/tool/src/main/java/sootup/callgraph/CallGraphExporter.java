@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package sootup.callgraph;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import com.snc.secres.tool.common.io.JsonHelpers;
+import com.snc.secres.tool.passive.graph.CompactCallGraph;
+
+import sootup.callgraph.GraphBasedCallGraph.Edge;
+import sootup.core.signatures.MethodSignature;
+
+/*
+ * Writes a call graph to a file one edge at a time instead of building the whole output in memory 
+ * first. The dot output is identical to that of GraphBasedCallGraph.exportAsDot followed by a new line.
+ * Only the edge order is held in memory which is a small fraction of the size of the output.
+ */
+public class CallGraphExporter {
+
+    public static final String DOT_FORMAT = "dot";
+    public static final String GRAPHML_FORMAT = "graphml";
+    public static final String JSONL_FORMAT = "jsonl";
+    public static final String BINARY_FORMAT = "binary";
+    public static final String NO_COMPRESSION = "none";
+    public static final String GZIP_COMPRESSION = "gzip";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final CallGraph callGraph;
+    private final Map<MethodSignature,VertexKey> keys;
+
+    public CallGraphExporter(CallGraph callGraph) {
+        this.callGraph = callGraph;
+        this.keys = new HashMap<>();
+    }
+
+    /** Returns the file extension for the format and compression or throws if either is not supported. */
+    public static String getFileExtension(String format, String compression) {
+        String ext;
+        switch(format.toLowerCase()) {
+            case DOT_FORMAT:
+                ext = ".dot";
+                break;
+            case GRAPHML_FORMAT:
+                ext = ".graphml";
+                break;
+            case JSONL_FORMAT:
+                ext = ".jsonl";
+                break;
+            case BINARY_FORMAT:
+                // The binary format is memory mapped when read so it cannot be compressed
+                if(!compression.equalsIgnoreCase(NO_COMPRESSION))
+                    throw new IllegalArgumentException("The call graph output format '" + format + "' does not support compression.");
+                ext = CompactCallGraph.FILE_EXT;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported call graph output format '" + format + "'.");
+        }
+        switch(compression.toLowerCase()) {
+            case NO_COMPRESSION:
+                return ext;
+            case GZIP_COMPRESSION:
+                return ext + ".gz";
+            default:
+                throw new IllegalArgumentException("Unsupported call graph output compression '" + compression + "'.");
+        }
+    }
+
+    public void export(Path outFile, String format, String compression) throws IOException {
+        getFileExtension(format, compression);
+        if(format.equalsIgnoreCase(BINARY_FORMAT)) {
+            writeBinary(outFile);
+            return;
+        }
+        OutputStream os = Files.newOutputStream(outFile);
+        if(compression.equalsIgnoreCase(GZIP_COMPRESSION))
+            os = new GZIPOutputStream(os, BUFFER_SIZE);
+        switch(format.toLowerCase()) {
+            case DOT_FORMAT:
+                // Same charset as the PrintStream previously used to write the dot file
+                try(Writer out = new BufferedWriter(new OutputStreamWriter(os, Charset.defaultCharset()), BUFFER_SIZE)) {
+                    writeDot(out);
+                }
+                break;
+            case GRAPHML_FORMAT:
+                try(Writer out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                    writeGraphML(out);
+                }
+                break;
+            case JSONL_FORMAT:
+                try(Writer out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                    writeJsonLines(out);
+                }
+                break;
+        }
+    }
+
+    public void writeDot(Writer out) throws IOException {
+        out.write("strict digraph ObjectGraph {\n");
+        for(MethodSignature[] call : getSortedCalls()) {
+            out.write("\t\"");
+            out.write(getKey(call[0]).signature);
+            out.write("\" -> \"");
+            out.write(getKey(call[1]).signature);
+            out.write("\";\n");
+        }
+        out.write("}\n");
+    }
+
+    public void writeGraphML(Writer out) throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+        out.write("  <key id=\"signature\" for=\"node\" attr.name=\"signature\" attr.type=\"string\"/>\n");
+        out.write("  <graph id=\"ObjectGraph\" edgedefault=\"directed\">\n");
+        List<MethodSignature> vertices = getSortedVertices();
+        Map<MethodSignature,Integer> ids = new HashMap<>();
+        for(MethodSignature v : vertices) {
+            int id = ids.size();
+            ids.put(v, id);
+            out.write("    <node id=\"n" + id + "\"><data key=\"signature\">");
+            out.write(escapeXml(getKey(v).signature));
+            out.write("</data></node>\n");
+        }
+        for(MethodSignature[] call : getSortedCalls()) {
+            out.write("    <edge source=\"n" + ids.get(call[0]) + "\" target=\"n" + ids.get(call[1]) + "\"/>\n");
+        }
+        out.write("  </graph>\n");
+        out.write("</graphml>\n");
+    }
+
+    /*
+     * One JSON object per line. All nodes are written first followed by all edges which refer to the
+     * nodes by id.
+     */
+    public void writeJsonLines(Writer out) throws IOException {
+        List<MethodSignature> vertices = getSortedVertices();
+        Map<MethodSignature,Integer> ids = new HashMap<>();
+        StringBuilder sb = new StringBuilder();
+        for(MethodSignature v : vertices) {
+            int id = ids.size();
+            ids.put(v, id);
+            sb.setLength(0);
+            sb.append("{\"type\":\"node\",\"id\":").append(id).append(",\"signature\":");
+            JsonHelpers.quote(sb, getKey(v).signature).append("}\n");
+            out.write(sb.toString());
+        }
+        for(MethodSignature[] call : getSortedCalls()) {
+            out.write("{\"type\":\"edge\",\"source\":" + ids.get(call[0]) + ",\"target\":" + ids.get(call[1]) + "}\n");
+        }
+    }
+
+    public void writeBinary(Path outFile) throws IOException {
+        List<MethodSignature> vertices = getSortedVertices();
+        Map<MethodSignature,Integer> ids = new HashMap<>();
+        List<String> signatures = new ArrayList<>(vertices.size());
+        for(MethodSignature v : vertices) {
+            ids.put(v, ids.size());
+            signatures.add(getKey(v).signature);
+        }
+        List<MethodSignature[]> calls = getCalls();
+        int[] sources = new int[calls.size()];
+        int[] targets = new int[sources.length];
+        for(int i = 0; i < sources.length; i++) {
+            sources[i] = ids.get(calls.get(i)[0]);
+            targets[i] = ids.get(calls.get(i)[1]);
+        }
+        CompactCallGraph.write(outFile, signatures, sources, targets);
+    }
+
+    private List<MethodSignature> getSortedVertices() {
+        List<MethodSignature> ret = new ArrayList<>(callGraph.getMethodSignatures());
+        ret.sort(Comparator.comparing(v -> getKey(v).signature));
+        return ret;
+    }
+
+    /*
+     * The calls as source and target pairs in the order they were added to the call graph where 
+     * possible. The sort is stable so this decides the order of calls that compare equal.
+     */
+    private List<MethodSignature[]> getCalls() {
+        List<MethodSignature[]> ret = new ArrayList<>();
+        if(callGraph instanceof GraphBasedCallGraph) {
+            GraphBasedCallGraph cg = (GraphBasedCallGraph)callGraph;
+            for(Edge edge : cg.getGraph().edgeSet()) {
+                ret.add(new MethodSignature[] {cg.getGraph().getEdgeSource(edge).methodSignature, cg.getGraph().getEdgeTarget(edge).methodSignature});
+            }
+        } else if(callGraph instanceof CallGraphOverlay) {
+            ((CallGraphOverlay)callGraph).forEachCall((source, target) -> ret.add(new MethodSignature[] {source, target}));
+        } else {
+            for(MethodSignature source : callGraph.getMethodSignatures()) {
+                for(MethodSignature target : callGraph.callsFrom(source)) {
+                    ret.add(new MethodSignature[] {source, target});
+                }
+            }
+        }
+        return ret;
+    }
+
+    // Same order as GraphBasedCallGraph.exportAsDot with the keys computed once per vertex
+    private List<MethodSignature[]> getSortedCalls() {
+        List<MethodSignature[]> ret = getCalls();
+        Comparator<MethodSignature[]> comp = Comparator.comparing((MethodSignature[] e) -> getKey(e[0]).fullyQualifiedName)
+            .thenComparing(e -> getKey(e[0]).name)
+            .thenComparing(e -> getKey(e[0]).parameterTypes)
+            .thenComparing(e -> getKey(e[1]).className)
+            .thenComparing(e -> getKey(e[1]).name)
+            .thenComparing(e -> getKey(e[1]).parameterTypes);
+        ret.sort(comp);
+        return ret;
+    }
+
+    private VertexKey getKey(MethodSignature v) {
+        VertexKey ret = keys.get(v);
+        if(ret == null) {
+            ret = new VertexKey(v);
+            keys.put(v, ret);
+        }
+        return ret;
+    }
+
+    private static String escapeXml(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for(int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch(c) {
+                case '<':
+                    sb.append("&lt;");
+                    break;
+                case '>':
+                    sb.append("&gt;");
+                    break;
+                case '&':
+                    sb.append("&amp;");
+                    break;
+                case '"':
+                    sb.append("&quot;");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static final class VertexKey {
+        private final String signature;
+        private final String fullyQualifiedName;
+        private final String className;
+        private final String name;
+        private final String parameterTypes;
+
+        private VertexKey(MethodSignature sig) {
+            this.signature = sig.toString();
+            this.fullyQualifiedName = sig.getDeclClassType().getFullyQualifiedName();
+            this.className = sig.getDeclClassType().getClassName();
+            this.name = sig.getName();
+            this.parameterTypes = sig.getParameterTypes().toString();
+        }
+    }
+
+}
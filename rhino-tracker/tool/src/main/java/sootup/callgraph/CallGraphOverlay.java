@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package sootup.callgraph;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import javax.annotation.Nonnull;
+
+import com.google.common.collect.Sets;
+
+import sootup.callgraph.GraphBasedCallGraph.Edge;
+import sootup.core.signatures.MethodSignature;
+
+/*
+ * A mutable view of a call graph that records all changes as a delta instead of modifying the base 
+ * call graph. Many overlays can share the same base call graph and be used from different threads
+ * as long as the base call graph itself is no longer modified. The calls of the overlay are ordered
+ * as if the changes had been made to a copy of the base call graph.
+ */
+public class CallGraphOverlay implements MutableCallGraph {
+
+    private final GraphBasedCallGraph base;
+    private final Set<MethodSignature> addedMethods;
+    private final Set<Call> addedCalls;
+    private final Map<MethodSignature,Set<MethodSignature>> addedCallsFrom;
+    private final Map<MethodSignature,Set<MethodSignature>> addedCallsTo;
+    private final Set<Call> removedCalls;
+
+    public CallGraphOverlay(GraphBasedCallGraph base) {
+        this.base = base;
+        this.addedMethods = new LinkedHashSet<>();
+        this.addedCalls = new LinkedHashSet<>();
+        this.addedCallsFrom = new HashMap<>();
+        this.addedCallsTo = new HashMap<>();
+        this.removedCalls = new HashSet<>();
+    }
+
+    public GraphBasedCallGraph getBase() {
+        return base;
+    }
+
+    @Override
+    public void addMethod(@Nonnull MethodSignature calledMethod) {
+        if(!base.containsMethod(calledMethod))
+            addedMethods.add(calledMethod);
+    }
+
+    @Override
+    public void addCall(@Nonnull MethodSignature sourceMethod, @Nonnull MethodSignature targetMethod) {
+        addMethod(sourceMethod);
+        addMethod(targetMethod);
+        Call call = new Call(sourceMethod, targetMethod);
+        // A removed base call that is added again comes after all base calls just like in a copy
+        if(baseContainsCall(call) || !addedCalls.add(call))
+            return;
+        addedCallsFrom.computeIfAbsent(sourceMethod, k -> new LinkedHashSet<>()).add(targetMethod);
+        addedCallsTo.computeIfAbsent(targetMethod, k -> new LinkedHashSet<>()).add(sourceMethod);
+    }
+
+    public void removeCall(@Nonnull MethodSignature sourceMethod, @Nonnull MethodSignature targetMethod) {
+        Call call = new Call(sourceMethod, targetMethod);
+        if(addedCalls.remove(call)) {
+            addedCallsFrom.get(sourceMethod).remove(targetMethod);
+            addedCallsTo.get(targetMethod).remove(sourceMethod);
+        } else if(baseContainsCall(call)) {
+            removedCalls.add(call);
+        }
+    }
+
+    private boolean baseContainsCall(Call call) {
+        return base.containsMethod(call.source) && base.containsMethod(call.target) && base.containsCall(call.source, call.target) 
+            && !removedCalls.contains(call);
+    }
+
+    @Nonnull
+    @Override
+    public Set<MethodSignature> getMethodSignatures() {
+        return Collections.unmodifiableSet(Sets.union(base.getMethodSignatures(), addedMethods));
+    }
+
+    @Nonnull
+    @Override
+    public Set<MethodSignature> callsFrom(@Nonnull MethodSignature sourceMethod) {
+        Set<MethodSignature> ret = new LinkedHashSet<>();
+        if(base.containsMethod(sourceMethod)) {
+            for(MethodSignature target : base.callsFrom(sourceMethod)) {
+                if(removedCalls.isEmpty() || !removedCalls.contains(new Call(sourceMethod, target)))
+                    ret.add(target);
+            }
+        }
+        ret.addAll(addedCallsFrom.getOrDefault(sourceMethod, Collections.emptySet()));
+        return ret;
+    }
+
+    @Nonnull
+    @Override
+    public Set<MethodSignature> callsTo(@Nonnull MethodSignature targetMethod) {
+        Set<MethodSignature> ret = new LinkedHashSet<>();
+        if(base.containsMethod(targetMethod)) {
+            for(MethodSignature source : base.callsTo(targetMethod)) {
+                if(removedCalls.isEmpty() || !removedCalls.contains(new Call(source, targetMethod)))
+                    ret.add(source);
+            }
+        }
+        ret.addAll(addedCallsTo.getOrDefault(targetMethod, Collections.emptySet()));
+        return ret;
+    }
+
+    @Override
+    public boolean containsMethod(@Nonnull MethodSignature method) {
+        return base.containsMethod(method) || addedMethods.contains(method);
+    }
+
+    @Override
+    public boolean containsCall(@Nonnull MethodSignature sourceMethod, @Nonnull MethodSignature targetMethod) {
+        Call call = new Call(sourceMethod, targetMethod);
+        return addedCalls.contains(call) || baseContainsCall(call);
+    }
+
+    @Override
+    public int callCount() {
+        return base.callCount() - removedCalls.size() + addedCalls.size();
+    }
+
+    /** Visits every call in the order the calls would have in a modified copy of the base call graph. */
+    public void forEachCall(BiConsumer<MethodSignature,MethodSignature> consumer) {
+        for(Edge edge : base.getGraph().edgeSet()) {
+            MethodSignature source = base.getGraph().getEdgeSource(edge).methodSignature;
+            MethodSignature target = base.getGraph().getEdgeTarget(edge).methodSignature;
+            if(removedCalls.isEmpty() || !removedCalls.contains(new Call(source, target)))
+                consumer.accept(source, target);
+        }
+        for(Call call : addedCalls) {
+            consumer.accept(call.source, call.target);
+        }
+    }
+
+    /** Visits every call that was added to the base call graph in the order the calls were added. */
+    public void forEachAddedCall(BiConsumer<MethodSignature,MethodSignature> consumer) {
+        for(Call call : addedCalls) {
+            consumer.accept(call.source, call.target);
+        }
+    }
+
+    @Override
+    public String exportAsDot() {
+        StringWriter out = new StringWriter();
+        try {
+            new CallGraphExporter(this).writeDot(out);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Same as GraphBasedCallGraph.exportAsDot which does not end with a new line
+        String ret = out.toString();
+        return ret.substring(0, ret.length() - 1);
+    }
+
+    @Nonnull
+    @Override
+    public MutableCallGraph copy() {
+        CallGraphOverlay ret = new CallGraphOverlay(base);
+        ret.addedMethods.addAll(addedMethods);
+        ret.addedCalls.addAll(addedCalls);
+        addedCallsFrom.forEach((k, v) -> ret.addedCallsFrom.put(k, new LinkedHashSet<>(v)));
+        addedCallsTo.forEach((k, v) -> ret.addedCallsTo.put(k, new LinkedHashSet<>(v)));
+        ret.removedCalls.addAll(removedCalls);
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "CallGraphOverlay [addedMethods=" + addedMethods.size() + ", addedCalls=" + addedCalls.size() + ", removedCalls=" 
+                + removedCalls.size() + "]";
+    }
+
+    private static final class Call {
+        private final MethodSignature source;
+        private final MethodSignature target;
+
+        private Call(MethodSignature source, MethodSignature target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * source.hashCode() + target.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Call))
+                return false;
+            Call other = (Call) obj;
+            return source.equals(other.source) && target.equals(other.target);
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package sootup.callgraph;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.annotation.Nonnull;
+
+import sootup.core.signatures.MethodSignature;
+
+/*
+ * Runs a task once for every method reached by a call graph algorithm on a pool of worker threads so the 
+ * work the task does ahead of time is done by the time the algorithm takes the method off its work list.
+ * The work list of the algorithms is a stack so the most recently reached methods are run first. The 
+ * task may only do work whose result does not depend on the state of the algorithm and any failure 
+ * of the task is ignored since the algorithm will redo the work itself.
+ *
+ * The workers are never interrupted. SootUp reads jars through a zip file system whose channel is shared 
+ * by every reader of the jar and closed if a reader is interrupted, after which no class can be read from
+ * the jar for the rest of the run. A shutdown instead cancels the tasks, which check isCancelled, and 
+ * waits for the running ones to return.
+ */
+final class CallGraphPrefetcher {
+
+    private final Set<MethodSignature> reached;
+    private final Consumer<MethodSignature> task;
+    private final ThreadPoolExecutor pool;
+    private volatile boolean cancelled;
+
+    CallGraphPrefetcher(int threads, @Nonnull Consumer<MethodSignature> task) {
+        this.reached = ConcurrentHashMap.newKeySet();
+        this.task = task;
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LifoQueue(), r -> {
+            Thread t = new Thread(r, "call-graph-prefetch");
+            t.setDaemon(true);
+            return t;
+        });
+        this.cancelled = false;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void submit(@Nonnull MethodSignature method) {
+        if(!reached.add(method) || pool.isShutdown())
+            return;
+        pool.execute(() -> {
+            if(cancelled)
+                return;
+            try {
+                task.accept(method);
+            } catch(Throwable t) {
+                // The algorithm does the work itself
+            }
+        });
+    }
+
+    void shutdown() {
+        cancelled = true;
+        pool.getQueue().clear();
+        pool.shutdown();
+        boolean interrupted = false;
+        while(true) {
+            try {
+                if(pool.awaitTermination(1, TimeUnit.SECONDS))
+                    break;
+            } catch(InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if(interrupted)
+            Thread.currentThread().interrupt();
+        reached.clear();
+    }
+
+    private static final class LifoQueue extends LinkedBlockingDeque<Runnable> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean offer(Runnable r) {
+            return offerFirst(r);
+        }
+    }
+
+}
@@ -22,7 +22,14 @@
 
 package sootup.callgraph;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nonnull;
@@ -149,15 +156,108 @@ public class CallGraphWrapper extends GraphBasedCallGraph {
         return ret;
     }
 
-    public void applyFilter(CallGraphFilter cgFilter, View view) {
-        AuxViewTypeHierarchy typeHierarchy = new AuxViewTypeHierarchy(view);
+    /* Removes every call denied by the filter and returns the number of calls removed. */
+    public int applyFilter(CallGraphFilter cgFilter, View view) {
+        // Reuse the hierarchy of the view if possible instead of scanning the view a second time
+        AuxViewTypeHierarchy typeHierarchy = view.getTypeHierarchy() instanceof AuxViewTypeHierarchy 
+            ? (AuxViewTypeHierarchy)view.getTypeHierarchy() : new AuxViewTypeHierarchy(view);
+        int removed = 0;
         for(MethodSignature source : getMethodSignatures()) {
             for(MethodSignature dest : callsFrom(source)) {
                 if(cgFilter.deniedEdge(source, dest, typeHierarchy)) {
                     removeCall(source, dest);
+                    removed++;
                 }
             }
         }
+        return removed;
+    }
+
+    /*
+     * Returns the chop of a call graph between the sources and the targets. That is all methods that 
+     * are reachable from a source and from which a target is reachable along with the calls between 
+     * them. If maxDepth is greater than 0 only the calls on a path of at most maxDepth calls from a 
+     * source to a target are kept. If maxFanOut is greater than 0 each method keeps at most maxFanOut 
+     * outgoing calls, preferring the callees closest to a target. Methods no longer reachable from a 
+     * source after the fan-out limit is applied are dropped.
+     */
+    public static CallGraphWrapper chop(CallGraph callGraph, Collection<MethodSignature> sources, Collection<MethodSignature> targets, 
+            int maxDepth, int maxFanOut) {
+        Map<MethodSignature,Integer> fromSources = distances(callGraph, sources, true, maxDepth);
+        Map<MethodSignature,Integer> toTargets = distances(callGraph, targets, false, maxDepth);
+
+        CallGraphWrapper ret = new CallGraphWrapper(new GraphBasedCallGraph());
+        Deque<MethodSignature> toVisit = new ArrayDeque<>();
+        for(MethodSignature source : sources) {
+            if(toTargets.containsKey(source) && !ret.containsMethod(source)) {
+                ret.addMethod(source);
+                toVisit.add(source);
+            }
+        }
+        while(!toVisit.isEmpty()) {
+            MethodSignature cur = toVisit.poll();
+            int depth = fromSources.get(cur);
+            List<MethodSignature> callees = new ArrayList<>();
+            for(MethodSignature dest : callGraph.callsFrom(cur)) {
+                Integer remaining = toTargets.get(dest);
+                if(remaining != null && (maxDepth <= 0 || depth + 1 + remaining <= maxDepth))
+                    callees.add(dest);
+            }
+            if(maxFanOut > 0 && callees.size() > maxFanOut) {
+                callees.sort(Comparator.comparing((MethodSignature m) -> toTargets.get(m)).thenComparing(MethodSignature::toString));
+                callees = callees.subList(0, maxFanOut);
+            }
+            for(MethodSignature dest : callees) {
+                if(!ret.containsMethod(dest)) {
+                    ret.addMethod(dest);
+                    toVisit.add(dest);
+                }
+                ret.addCall(cur, dest);
+            }
+        }
+        return ret;
+    }
+
+    /* Returns the methods reachable from the source along with the calls between them. */
+    public static CallGraphWrapper slice(CallGraph callGraph, MethodSignature source) {
+        CallGraphWrapper ret = new CallGraphWrapper(new GraphBasedCallGraph());
+        if(!callGraph.containsMethod(source))
+            return ret;
+        Deque<MethodSignature> toVisit = new ArrayDeque<>();
+        ret.addMethod(source);
+        toVisit.add(source);
+        while(!toVisit.isEmpty()) {
+            MethodSignature cur = toVisit.poll();
+            for(MethodSignature dest : callGraph.callsFrom(cur)) {
+                if(!ret.containsMethod(dest)) {
+                    ret.addMethod(dest);
+                    toVisit.add(dest);
+                }
+                ret.addCall(cur, dest);
+            }
+        }
+        return ret;
+    }
+
+    // Shortest number of calls from (forward) or to (backward) the given methods up to maxDepth if greater than 0
+    private static Map<MethodSignature,Integer> distances(CallGraph callGraph, Collection<MethodSignature> start, boolean forward, int maxDepth) {
+        Map<MethodSignature,Integer> ret = new HashMap<>();
+        Deque<MethodSignature> toVisit = new ArrayDeque<>();
+        for(MethodSignature m : start) {
+            if(callGraph.containsMethod(m) && ret.putIfAbsent(m, 0) == null)
+                toVisit.add(m);
+        }
+        while(!toVisit.isEmpty()) {
+            MethodSignature cur = toVisit.poll();
+            int depth = ret.get(cur);
+            if(maxDepth > 0 && depth >= maxDepth)
+                continue;
+            for(MethodSignature next : forward ? callGraph.callsFrom(cur) : callGraph.callsTo(cur)) {
+                if(ret.putIfAbsent(next, depth + 1) == null)
+                    toVisit.add(next);
+            }
+        }
+        return ret;
     }
 
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package sootup.callgraph;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
+
+import sootup.core.signatures.MethodSignature;
+
+/*
+ * A call graph algorithm that can extend a call graph it built with the methods reachable from more entry points 
+ * without building the call graph again. The algorithm must be made extensible before it builds the call graph 
+ * so it keeps the state the extension resumes from.
+ */
+public interface ExtensibleCallGraphAlgorithm extends CallGraphAlgorithm {
+
+    void setExtensible(boolean extensible);
+
+    boolean isExtensible();
+
+    /*
+     * Adds the methods reachable from the entry points that the base call graph of the overlay does not contain to 
+     * the overlay along with their calls. The base call graph must be the one built by this algorithm. The budget 
+     * does not apply to an extension. The state of the algorithm is left as the construction ended so every 
+     * extension is independent of the others.
+     */
+    void extend(@Nonnull CallGraphOverlay overlay, @Nonnull Collection<MethodSignature> entryPoints);
+
+    /* Processes the work list from the entry points not yet in the base call graph, whose methods count as processed. */
+    static void extend(@Nonnull AbstractCallGraphAlgorithm algorithm, @Nonnull CallGraphOverlay overlay, 
+            @Nonnull Collection<MethodSignature> entryPoints) {
+        GraphBasedCallGraph base = overlay.getBase();
+        List<MethodSignature> roots = entryPoints.stream()
+            .filter(m -> !base.containsMethod(m))
+            .distinct()
+            .collect(Collectors.toList());
+        if(roots.isEmpty())
+            return;
+        Deque<MethodSignature> workList = new ArrayDeque<>(roots);
+        Set<MethodSignature> processed = new HashSet<MethodSignature>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public boolean contains(Object o) {
+                return base.containsMethod((MethodSignature)o) || super.contains(o);
+            }
+        };
+        algorithm.addImplicitEdgesOfEntryPoints(roots, overlay, workList);
+        algorithm.processWorkList(algorithm.view, workList, processed, overlay);
+    }
+
+}
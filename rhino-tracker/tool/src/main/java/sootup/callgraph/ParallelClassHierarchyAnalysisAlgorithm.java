@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package sootup.callgraph;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.Nonnull;
+
+import sootup.core.model.SootClass;
+import sootup.core.model.SootMethod;
+import sootup.core.signatures.MethodSignature;
+import sootup.core.views.View;
+
+/*
+ * A class hierarchy analysis whose reached methods are resolved by worker threads. The targets of a method in 
+ * a class hierarchy analysis only depend on the method itself so the workers resolve the body and all the call 
+ * targets of each method as soon as it is reached. The work list is still processed in the same order on the 
+ * calling thread, which only has to add the resolved targets to the call graph, so the call graph is identical 
+ * to the one of the sequential analysis. The budget and checkpoint work as they do for the sequential analysis.
+ */
+public class ParallelClassHierarchyAnalysisAlgorithm extends BudgetedClassHierarchyAnalysisAlgorithm {
+
+    private final int threads;
+    private final Map<MethodSignature, List<MethodSignature>> resolvedCalls;
+    private final Map<MethodSignature, List<MethodSignature>> resolvedImplicitCalls;
+    private volatile CallGraphPrefetcher prefetcher;
+
+    public ParallelClassHierarchyAnalysisAlgorithm(@Nonnull View view, @Nonnull CallGraphBudget budget, CallGraphCheckpoint checkpoint, 
+            int threads) {
+        super(view, budget, checkpoint);
+        this.threads = Math.max(1, threads);
+        this.resolvedCalls = new ConcurrentHashMap<>();
+        this.resolvedImplicitCalls = new ConcurrentHashMap<>();
+        this.prefetcher = null;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    @Override
+    @Nonnull
+    public CallGraph initialize(@Nonnull List<MethodSignature> entryPoints) {
+        prefetcher = new CallGraphPrefetcher(threads, this::resolve);
+        try {
+            entryPoints.forEach(prefetcher::submit);
+            return super.initialize(entryPoints);
+        } finally {
+            prefetcher.shutdown();
+            prefetcher = null;
+            resolvedCalls.clear();
+            resolvedImplicitCalls.clear();
+        }
+    }
+
+    private boolean isCancelled() {
+        CallGraphPrefetcher cur = prefetcher;
+        return cur == null || cur.isCancelled();
+    }
+
+    private void resolve(MethodSignature methodSignature) {
+        if(isCancelled())
+            return;
+        SootClass clazz = view.getClass(methodSignature.getDeclClassType()).orElse(null);
+        if(clazz == null || clazz.isLibraryClass())
+            return;
+        SootMethod method = clazz.getMethod(methodSignature.getSubSignature()).orElse(null);
+        if(method == null || !method.hasBody())
+            return;
+        if(isCancelled())
+            return;
+        resolvedCalls.put(methodSignature, super.resolveAllCallsFromSourceMethod(method).collect(Collectors.toList()));
+        resolvedImplicitCalls.put(methodSignature, super.resolveAllImplicitCallsFromSourceMethod(view, method).collect(Collectors.toList()));
+    }
+
+    @Override
+    @Nonnull
+    Stream<MethodSignature> resolveAllCallsFromSourceMethod(SootMethod sourceMethod) {
+        List<MethodSignature> targets = sourceMethod == null ? null : resolvedCalls.remove(sourceMethod.getSignature());
+        return targets == null ? super.resolveAllCallsFromSourceMethod(sourceMethod) : targets.stream();
+    }
+
+    @Override
+    @Nonnull
+    protected Stream<MethodSignature> resolveAllImplicitCallsFromSourceMethod(View view, SootMethod sourceMethod) {
+        List<MethodSignature> targets = sourceMethod == null ? null : resolvedImplicitCalls.remove(sourceMethod.getSignature());
+        return targets == null ? super.resolveAllImplicitCallsFromSourceMethod(view, sourceMethod) : targets.stream();
+    }
+
+    @Override
+    protected void postProcessingMethod(View view, MethodSignature sourceMethod, @Nonnull Deque<MethodSignature> workList, 
+            @Nonnull MutableCallGraph cg) {
+        super.postProcessingMethod(view, sourceMethod, workList, cg);
+        // There are no workers to prefetch for when a built call graph is extended
+        if(prefetcher != null)
+            cg.callsFrom(sourceMethod).forEach(prefetcher::submit);
+    }
+
+}
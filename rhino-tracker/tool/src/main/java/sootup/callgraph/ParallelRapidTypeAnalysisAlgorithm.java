@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package sootup.callgraph;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.Nonnull;
+
+import sootup.core.jimple.common.expr.AbstractInvokeExpr;
+import sootup.core.jimple.common.expr.JSpecialInvokeExpr;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.core.model.MethodModifier;
+import sootup.core.model.SootClass;
+import sootup.core.model.SootMethod;
+import sootup.core.signatures.MethodSignature;
+import sootup.core.types.ClassType;
+import sootup.core.views.View;
+
+/*
+ * A rapid type analysis whose reached methods are resolved by worker threads. Which targets of a virtual call are
+ * kept depends on the classes instantiated so far so only the parts of a call that do not are resolved by the
+ * workers as soon as the method is reached: the body, the static initializers it triggers, the concrete method
+ * of each call, and the subtypes of the class declaring it along with their dispatch for each type instantiated
+ * so far. The work list is still processed in the same order on the calling thread using the same logic as the
+ * sequential analysis, looking up what the workers resolved, so the call graph is identical to the one of the
+ * sequential analysis. The budget and checkpoint work as they do for the sequential analysis.
+ */
+public class ParallelRapidTypeAnalysisAlgorithm extends BudgetedRapidTypeAnalysisAlgorithm {
+
+    private final int threads;
+    private final Set<ClassType> instantiatedTypes;
+    private final Map<MethodSignature, List<MethodSignature>> resolvedImplicitCalls;
+    private final Map<MethodSignature, Optional<SootMethod>> concreteMethods;
+    private final Map<ClassType, List<ClassType>> subtypes;
+    private volatile CallGraphPrefetcher prefetcher;
+
+    public ParallelRapidTypeAnalysisAlgorithm(@Nonnull View view, @Nonnull CallGraphBudget budget, CallGraphCheckpoint checkpoint, 
+            int threads) {
+        super(view, budget, checkpoint);
+        this.threads = Math.max(1, threads);
+        this.instantiatedTypes = ConcurrentHashMap.newKeySet();
+        this.resolvedImplicitCalls = new ConcurrentHashMap<>();
+        this.concreteMethods = new ConcurrentHashMap<>();
+        this.subtypes = new ConcurrentHashMap<>();
+        this.prefetcher = null;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    @Override
+    @Nonnull
+    public CallGraph initialize(@Nonnull List<MethodSignature> entryPoints) {
+        prefetcher = new CallGraphPrefetcher(threads, this::resolve);
+        try {
+            entryPoints.forEach(prefetcher::submit);
+            return super.initialize(entryPoints);
+        } finally {
+            prefetcher.shutdown();
+            prefetcher = null;
+            instantiatedTypes.clear();
+            resolvedImplicitCalls.clear();
+            concreteMethods.clear();
+            subtypes.clear();
+        }
+    }
+
+    private boolean isCancelled() {
+        CallGraphPrefetcher cur = prefetcher;
+        return cur == null || cur.isCancelled();
+    }
+
+    private void resolve(MethodSignature methodSignature) {
+        if(isCancelled())
+            return;
+        SootClass clazz = view.getClass(methodSignature.getDeclClassType()).orElse(null);
+        if(clazz == null || clazz.isLibraryClass())
+            return;
+        SootMethod method = clazz.getMethod(methodSignature.getSubSignature()).orElse(null);
+        if(method == null || !method.hasBody())
+            return;
+        resolvedImplicitCalls.put(methodSignature, super.resolveAllImplicitCallsFromSourceMethod(view, method).collect(Collectors.toList()));
+        for(Stmt stmt : method.getBody().getStmts()) {
+            if(isCancelled())
+                return;
+            if(!stmt.containsInvokeExpr())
+                continue;
+            AbstractInvokeExpr invokeExpr = stmt.getInvokeExpr();
+            MethodSignature base = invokeExpr.getMethodSignature();
+            SootMethod concreteBaseMethod = findConcreteMethod(base).orElse(null);
+            if(concreteBaseMethod == null || MethodModifier.isStatic(concreteBaseMethod.getModifiers()) || invokeExpr instanceof JSpecialInvokeExpr)
+                continue;
+            for(ClassType classType : subtypesOf(base.getDeclClassType())) {
+                if(instantiatedTypes.contains(classType))
+                    resolveConcreteDispatch(view.getIdentifierFactory().getMethodSignature(classType, base.getSubSignature()));
+            }
+        }
+    }
+
+    private Optional<SootMethod> findConcreteMethod(MethodSignature methodSignature) {
+        Optional<SootMethod> ret = concreteMethods.get(methodSignature);
+        if(ret == null) {
+            ret = findConcreteMethod(view, methodSignature);
+            concreteMethods.putIfAbsent(methodSignature, ret);
+        }
+        return ret;
+    }
+
+    private Optional<MethodSignature> resolveConcreteDispatch(MethodSignature methodSignature) {
+        return findConcreteMethod(methodSignature).filter(m -> !m.isAbstract()).map(m -> m.getSignature());
+    }
+
+    private List<ClassType> subtypesOf(ClassType classType) {
+        List<ClassType> ret = subtypes.get(classType);
+        if(ret == null) {
+            ret = view.getTypeHierarchy().subtypesOf(classType).collect(Collectors.toList());
+            subtypes.putIfAbsent(classType, ret);
+        }
+        return ret;
+    }
+
+    @Override
+    protected void preProcessingMethod(View view, MethodSignature sourceMethod, @Nonnull Deque<MethodSignature> workList, 
+            @Nonnull MutableCallGraph cg) {
+        // Catch up on the instantiated classes restored from a checkpoint
+        if(instantiatedTypes.size() < instantiatedClasses.size())
+            instantiatedTypes.addAll(instantiatedClasses);
+        super.preProcessingMethod(view, sourceMethod, workList, cg);
+    }
+
+    @Override
+    protected List<ClassType> collectInstantiatedClassesInMethod(SootMethod method) {
+        List<ClassType> newInstantiatedClassTypes = super.collectInstantiatedClassesInMethod(method);
+        instantiatedTypes.addAll(newInstantiatedClassTypes);
+        return newInstantiatedClassTypes;
+    }
+
+    @Override
+    @Nonnull
+    protected Stream<MethodSignature> resolveAllImplicitCallsFromSourceMethod(View view, SootMethod sourceMethod) {
+        List<MethodSignature> targets = sourceMethod == null ? null : resolvedImplicitCalls.remove(sourceMethod.getSignature());
+        return targets == null ? super.resolveAllImplicitCallsFromSourceMethod(view, sourceMethod) : targets.stream();
+    }
+
+    /* The same as RapidTypeAnalysisAlgorithm.resolveCall but with the lookups the workers resolved ahead of time. */
+    @Override
+    @Nonnull
+    protected Stream<MethodSignature> resolveCall(SootMethod sourceMethod, AbstractInvokeExpr invokeExpr) {
+        MethodSignature base = invokeExpr.getMethodSignature();
+        Stream<MethodSignature> result = Stream.of(base);
+        SootMethod concreteBaseMethod = findConcreteMethod(base).orElse(null);
+        if(concreteBaseMethod == null || MethodModifier.isStatic(concreteBaseMethod.getModifiers()) || invokeExpr instanceof JSpecialInvokeExpr)
+            return result;
+        if(instantiatedClasses.contains(base.getDeclClassType()))
+            return Stream.concat(Stream.of(concreteBaseMethod.getSignature()), resolveAllCallTargets(sourceMethod.getSignature(), base));
+        saveIgnoredCall(sourceMethod.getSignature(), base);
+        return resolveAllCallTargets(sourceMethod.getSignature(), base);
+    }
+
+    private Stream<MethodSignature> resolveAllCallTargets(MethodSignature source, MethodSignature base) {
+        return subtypesOf(base.getDeclClassType()).stream().map(classType -> {
+            MethodSignature method = view.getIdentifierFactory().getMethodSignature(classType, base.getSubSignature());
+            if(instantiatedClasses.contains(classType))
+                return resolveConcreteDispatch(method);
+            saveIgnoredCall(source, method);
+            return Optional.<MethodSignature>empty();
+        }).filter(Optional::isPresent).map(Optional::get);
+    }
+
+    private void saveIgnoredCall(MethodSignature source, MethodSignature target) {
+        ignoredCalls.computeIfAbsent(target.getDeclClassType(), k -> new ArrayList<>()).add(new Call(source, target));
+    }
+
+    @Override
+    protected void includeIgnoredCallsToClass(ClassType classType, MutableCallGraph cg, Deque<MethodSignature> workList) {
+        List<Call> newEdges = ignoredCalls.remove(classType);
+        if(newEdges == null)
+            return;
+        for(Call call : newEdges) {
+            MethodSignature concreteTarget = resolveConcreteDispatch(call.target).orElse(null);
+            if(concreteTarget == null)
+                continue;
+            if(!cg.containsMethod(concreteTarget)) {
+                cg.addMethod(concreteTarget);
+                cg.addCall(call.source, concreteTarget);
+                workList.push(concreteTarget);
+            } else {
+                cg.addCall(call.source, concreteTarget);
+            }
+        }
+    }
+
+    @Override
+    protected void postProcessingMethod(View view, MethodSignature sourceMethod, @Nonnull Deque<MethodSignature> workList, 
+            @Nonnull MutableCallGraph cg) {
+        super.postProcessingMethod(view, sourceMethod, workList, cg);
+        // There are no workers to prefetch for when a built call graph is extended
+        if(prefetcher != null)
+            cg.callsFrom(sourceMethod).forEach(prefetcher::submit);
+    }
+
+}
@@ -24,51 +24,91 @@ package sootup.callgraph.filter;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import sootup.core.signatures.MethodSignature;
 import sootup.core.typehierarchy.AuxViewTypeHierarchy;
+import sootup.core.types.ClassType;
 
 public class CallGraphFilter {
 
     private final boolean defaultDeny;
     private final List<Entry> entries;
+    private final ClassNameMatcher classNameMatcher;
 
     private volatile AuxViewTypeHierarchy cachedTypeHierarchy;
-    private volatile Map<MethodSignature,Boolean> cache;
+    private volatile Map<ClassType,ClassDecision> cache;
 
     private CallGraphFilter(boolean defaultDeny, List<Entry> entries) {
         this.defaultDeny = defaultDeny;
         this.entries = entries;
+        this.classNameMatcher = new ClassNameMatcher(entries);
 
         this.cachedTypeHierarchy = null;
         this.cache = null;
     }
 
     public boolean deniedEdge(MethodSignature source, MethodSignature destination, AuxViewTypeHierarchy typeHierarchy) {
+        ClassDecision decision = getClassDecision(source.getDeclClassType(), typeHierarchy);
+        for(Entry e : decision.methodEntries) {
+            if(e.matches(source, typeHierarchy)) {
+                return e.denyIfMatch();
+            }
+        }
+        return decision.deny;
+    }
+
+    /*
+     * Returns true if the outgoing edges of all methods in the given class are denied, in other words
+     * if the decision for the class does not depend on the method.
+     */
+    public boolean deniedClass(ClassType type, AuxViewTypeHierarchy typeHierarchy) {
+        ClassDecision decision = getClassDecision(type, typeHierarchy);
+        return decision.methodEntries.isEmpty() && decision.deny;
+    }
+
+    private ClassDecision getClassDecision(ClassType type, AuxViewTypeHierarchy typeHierarchy) {
+        Map<ClassType,ClassDecision> cache = this.cache;
         if(this.cachedTypeHierarchy == null || !this.cachedTypeHierarchy.equals(typeHierarchy)) {
-            this.cache = new HashMap<>();
+            cache = new ConcurrentHashMap<>();
+            this.cache = cache;
             this.cachedTypeHierarchy = typeHierarchy;
         }
 
-        Boolean ret = cache.get(source);
-        if(ret != null) {
-            return ret;
-        } else {
-            for(Entry e : entries) {
-                if(e.matches(source, typeHierarchy)) {
-                    cache.put(source, e.denyIfMatch());
-                    return e.denyIfMatch();
-                }
+        ClassDecision ret = cache.get(type);
+        if(ret == null) {
+            ret = makeClassDecision(type, typeHierarchy);
+            cache.putIfAbsent(type, ret);
+        }
+        return ret;
+    }
+
+    /*
+     * Walks the entries in order for a single class. Plain class entries are resolved all at once by
+     * the class name matcher. Any entry before the first class level match that can only be decided
+     * per method is kept so it can be checked against the method in question.
+     */
+    private ClassDecision makeClassDecision(ClassType type, AuxViewTypeHierarchy typeHierarchy) {
+        int firstClassMatch = classNameMatcher.firstMatch(type.getFullyQualifiedName());
+        int end = firstClassMatch < 0 ? entries.size() : firstClassMatch;
+        List<Entry> methodEntries = new ArrayList<>();
+        for(int i = 0; i < end; i++) {
+            Entry e = entries.get(i);
+            if(e.getClass() == ClassEntry.class)
+                continue;
+            Boolean matches = e.matchesClass(type, typeHierarchy);
+            if(matches == null) {
+                methodEntries.add(e);
+            } else if(matches) {
+                return new ClassDecision(methodEntries, e.denyIfMatch());
             }
-            cache.put(source, defaultDeny);
-            return defaultDeny;
         }
+        return new ClassDecision(methodEntries, firstClassMatch < 0 ? defaultDeny : entries.get(firstClassMatch).denyIfMatch());
     }
 
     public static CallGraphFilter makeCallGraphFilter(String defaultPolicy, List<Map<String,String>> entries) {
@@ -141,5 +181,15 @@ public class CallGraphFilter {
             return new CallGraphFilter(defaultDeny, Collections.emptyList());
         }
     }
+
+    private static final class ClassDecision {
+        private final List<Entry> methodEntries;
+        private final boolean deny;
+
+        private ClassDecision(List<Entry> methodEntries, boolean deny) {
+            this.methodEntries = methodEntries.isEmpty() ? Collections.emptyList() : methodEntries;
+            this.deny = deny;
+        }
+    }
     
 }
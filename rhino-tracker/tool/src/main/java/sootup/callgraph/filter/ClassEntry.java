@@ -26,6 +26,7 @@ import java.util.regex.Pattern;
 
 import sootup.core.signatures.MethodSignature;
 import sootup.core.typehierarchy.AuxViewTypeHierarchy;
+import sootup.core.types.ClassType;
 
 public class ClassEntry extends Entry {
 
@@ -84,7 +85,15 @@ public class ClassEntry extends Entry {
 
     @Override
     public boolean matches(MethodSignature sig, AuxViewTypeHierarchy typeHierarchy) {
-        String cn = sig.getDeclClassType().getFullyQualifiedName();
+        return matchesClassName(sig.getDeclClassType().getFullyQualifiedName());
+    }
+
+    @Override
+    public Boolean matchesClass(ClassType type, AuxViewTypeHierarchy typeHierarchy) {
+        return matchesClassName(type.getFullyQualifiedName());
+    }
+
+    public boolean matchesClassName(String cn) {
         return this.name == null ? pattern.matcher(cn).matches() : this.name.equals(cn);
     }
 
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package sootup.callgraph.filter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Finds the first ClassEntry in a ordered list of entries that matches a class name. Exact names are
+ * looked up in a hash map. Regular expressions are stored in a trie under the literal prefix they
+ * start with so only those patterns whose prefix matches the class name are ever run.
+ */
+public class ClassNameMatcher {
+
+    private final Map<String,Integer> exactNames;
+    private final Node root;
+
+    public ClassNameMatcher(List<? extends Entry> entries) {
+        this.exactNames = new HashMap<>();
+        this.root = new Node();
+        for(int i = 0; i < entries.size(); i++) {
+            Entry e = entries.get(i);
+            if(e.getClass() != ClassEntry.class)
+                continue;
+            ClassEntry ce = (ClassEntry)e;
+            if(ce.getPattern() == null) {
+                exactNames.putIfAbsent(ce.getName(), i);
+            } else {
+                Node cur = root;
+                for(char c : getLiteralPrefix(ce.getPattern().pattern()).toCharArray()) {
+                    cur = cur.children.computeIfAbsent(c, k -> new Node());
+                }
+                cur.entries.add(i);
+                cur.patterns.add(ce);
+            }
+        }
+    }
+
+    /*
+     * Returns the index of the first class entry matching the given fully qualified class name or -1
+     * if no class entry matches.
+     */
+    public int firstMatch(String className) {
+        int best = exactNames.getOrDefault(className, Integer.MAX_VALUE);
+
+        List<Integer> candidates = new ArrayList<>();
+        Map<Integer,ClassEntry> candidateEntries = new HashMap<>();
+        Node cur = root;
+        int pos = 0;
+        while(cur != null) {
+            for(int i = 0; i < cur.entries.size(); i++) {
+                int index = cur.entries.get(i);
+                if(index < best) {
+                    candidates.add(index);
+                    candidateEntries.put(index, cur.patterns.get(i));
+                }
+            }
+            cur = pos < className.length() ? cur.children.get(className.charAt(pos++)) : null;
+        }
+
+        Collections.sort(candidates);
+        for(int index : candidates) {
+            if(index >= best)
+                break;
+            if(candidateEntries.get(index).matchesClassName(className)) {
+                best = index;
+                break;
+            }
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    /*
+     * Returns the literal text every string matched by the regular expression has to start with. The
+     * scan stops at the first meta character and drops the last literal if a quantifier follows it. A
+     * pattern containing an alternation has no usable prefix.
+     */
+    static String getLiteralPrefix(String regex) {
+        if(regex.indexOf('|') >= 0)
+            return "";
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        while(i < regex.length()) {
+            char c = regex.charAt(i);
+            int next;
+            char literal;
+            if(c == '\\') {
+                if(i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1)))
+                    break;
+                literal = regex.charAt(i + 1);
+                next = i + 2;
+            } else if(".[]()*+?{}^$".indexOf(c) >= 0) {
+                break;
+            } else {
+                literal = c;
+                next = i + 1;
+            }
+            if(next < regex.length() && "*+?{".indexOf(regex.charAt(next)) >= 0)
+                break;
+            sb.append(literal);
+            i = next;
+        }
+        return sb.toString();
+    }
+
+    private static final class Node {
+        private final Map<Character,Node> children = new HashMap<>();
+        private final List<Integer> entries = new ArrayList<>();
+        private final List<ClassEntry> patterns = new ArrayList<>();
+    }
+
+}
@@ -24,6 +24,7 @@ package sootup.callgraph.filter;
 
 import sootup.core.signatures.MethodSignature;
 import sootup.core.typehierarchy.AuxViewTypeHierarchy;
+import sootup.core.types.ClassType;
 
 public abstract class Entry {
 
@@ -57,6 +58,14 @@ public abstract class Entry {
 
     public abstract boolean matches(MethodSignature sig, AuxViewTypeHierarchy typeHierarchy);
 
+    /*
+     * Decides the match for all methods of a class at once. Returns true or false when every method
+     * of the class shares the same outcome and null when the outcome has to be decided per method.
+     */
+    public Boolean matchesClass(ClassType type, AuxViewTypeHierarchy typeHierarchy) {
+        return null;
+    }
+
     public boolean denyIfMatch() {
         return isDeny;
     }
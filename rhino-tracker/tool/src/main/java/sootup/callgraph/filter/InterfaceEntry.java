@@ -22,25 +22,33 @@
 
 package sootup.callgraph.filter;
 
-import java.util.Set;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+import sootup.core.model.SootMethod;
 import sootup.core.signatures.MethodSignature;
 import sootup.core.typehierarchy.AuxViewTypeHierarchy;
 import sootup.core.types.ClassType;
 
+/*
+ * Matches the methods of all classes implementing a interface matched by the pattern. Matching starts
+ * at the class declaring the queried method and walks upwards through its implemented interfaces so
+ * the view is never enumerated. The matched interfaces are cached per class.
+ */
 public class InterfaceEntry extends ClassEntry {
 
     private final boolean allSubClassMethods;
     private volatile AuxViewTypeHierarchy cachedTypeHierarchy;
-    private volatile Set<MethodSignature> cachedMethods;
+    private volatile Map<ClassType,List<ClassType>> cachedMatches;
 
     public InterfaceEntry(boolean isDeny, String pattern, boolean isExact, boolean allSubClassMethods) {
         super(isDeny, pattern, isExact);
         this.allSubClassMethods = allSubClassMethods;
         this.cachedTypeHierarchy = null;
-        this.cachedMethods = null;
+        this.cachedMatches = null;
     }
 
     @Override
@@ -67,31 +75,65 @@ public class InterfaceEntry extends ClassEntry {
 
     @Override
     public boolean matches(MethodSignature sig, AuxViewTypeHierarchy typeHierarchy) {
+        List<ClassType> matched = getMatchedInterfaces(sig.getDeclClassType(), typeHierarchy);
+        if(matched.isEmpty())
+            return false;
+
+        SootMethod method = typeHierarchy.getView().getClass(sig.getDeclClassType())
+            .flatMap(c -> c.getMethod(sig.getSubSignature())).orElse(null);
+        if(method == null)
+            return false;
+        if(allSubClassMethods)
+            return true;
+        if(method.isAbstract() || sig.getName().equals("<init>") || sig.getName().equals("<clinit>"))
+            return false;
+
+        int subSig = typeHierarchy.getSubSignatureId(sig);
+        for(ClassType c : matched) {
+            if(typeHierarchy.getDeclaredSubSignatureIds(c).contains(subSig))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Boolean matchesClass(ClassType type, AuxViewTypeHierarchy typeHierarchy) {
+        if(getMatchedInterfaces(type, typeHierarchy).isEmpty())
+            return false;
+        return allSubClassMethods ? true : null;
+    }
+
+    private void resetCache(AuxViewTypeHierarchy typeHierarchy) {
         if(this.cachedTypeHierarchy == null || !this.cachedTypeHierarchy.equals(typeHierarchy)) {
-            Stream<ClassType> interfaces;
-            if(getPattern() == null) {
-                interfaces = Stream.of(typeHierarchy.getView().getIdentifierFactory().getClassType(getName()));
-            } else {
-                interfaces = typeHierarchy.getView().getClasses().stream()
-                    .filter(sc -> 
-                        sc.isInterface() 
-                        && getPattern().matcher(sc.getType().getFullyQualifiedName()).matches())
-                    .map(sc -> sc.getType());
-            }
-            interfaces = interfaces.filter(c -> typeHierarchy.contains(c));
-
-            Stream<MethodSignature> possibleMethods;
-            if(!allSubClassMethods) {
-                possibleMethods = interfaces.flatMap(i -> typeHierarchy.getAllImplementingMethods(i));
-            } else {
-                possibleMethods = interfaces.flatMap(i -> typeHierarchy.getAllSubClassMethods(i));
-            }
-
-            this.cachedMethods = possibleMethods.collect(Collectors.toSet());
+            this.cachedMatches = new ConcurrentHashMap<>();
             this.cachedTypeHierarchy = typeHierarchy;
         }
+    }
 
-        return this.cachedMethods.contains(sig);
+    private List<ClassType> getMatchedInterfaces(ClassType type, AuxViewTypeHierarchy typeHierarchy) {
+        resetCache(typeHierarchy);
+        List<ClassType> ret = cachedMatches.get(type);
+        if(ret == null) {
+            ret = findMatchedInterfaces(type, typeHierarchy);
+            cachedMatches.putIfAbsent(type, ret);
+        }
+        return ret;
+    }
+
+    private List<ClassType> findMatchedInterfaces(ClassType type, AuxViewTypeHierarchy typeHierarchy) {
+        if(!typeHierarchy.contains(type) || !typeHierarchy.isClass(type))
+            return Collections.emptyList();
+        // All interfaces implemented directly or indirectly by the class or any of its super classes
+        return typeHierarchy.implementedInterfacesOf(type)
+            .filter(i -> matchesAncestor(i, typeHierarchy))
+            .collect(Collectors.toList());
+    }
+
+    private boolean matchesAncestor(ClassType type, AuxViewTypeHierarchy typeHierarchy) {
+        if(!matchesClassName(type.getFullyQualifiedName()))
+            return false;
+        // Patterns only ever matched interfaces present in the view
+        return getPattern() == null || typeHierarchy.getView().getClass(type).isPresent();
     }
 
 }
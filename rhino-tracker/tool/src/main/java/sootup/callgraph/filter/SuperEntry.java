@@ -22,25 +22,34 @@
 
 package sootup.callgraph.filter;
 
-import java.util.Set;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import sootup.core.model.SootMethod;
 import sootup.core.signatures.MethodSignature;
 import sootup.core.typehierarchy.AuxViewTypeHierarchy;
 import sootup.core.types.ClassType;
 
+/*
+ * Matches the methods of all classes extending a class matched by the pattern (including the matched
+ * class itself). Matching starts at the class declaring the queried method and walks upwards through
+ * its super classes so the view is never enumerated. The matched super classes are cached per class.
+ */
 public class SuperEntry extends ClassEntry {
 
     private final boolean allSubClassMethods;
     private volatile AuxViewTypeHierarchy cachedTypeHierarchy;
-    private volatile Set<MethodSignature> cachedMethods;
+    private volatile Map<ClassType,List<ClassType>> cachedMatches;
 
     public SuperEntry(boolean isDeny, String pattern, boolean isExact, boolean allSubClassMethods) {
         super(isDeny, pattern, isExact);
         this.allSubClassMethods = allSubClassMethods;
         this.cachedTypeHierarchy = null;
-        this.cachedMethods = null;
+        this.cachedMatches = null;
     }
 
     @Override
@@ -67,33 +76,65 @@ public class SuperEntry extends ClassEntry {
 
     @Override
     public boolean matches(MethodSignature sig, AuxViewTypeHierarchy typeHierarchy) {
+        List<ClassType> matched = getMatchedClasses(sig.getDeclClassType(), typeHierarchy);
+        if(matched.isEmpty())
+            return false;
+
+        SootMethod method = typeHierarchy.getView().getClass(sig.getDeclClassType())
+            .flatMap(c -> c.getMethod(sig.getSubSignature())).orElse(null);
+        if(method == null)
+            return false;
+        if(allSubClassMethods)
+            return true;
+        if(method.isAbstract() || sig.getName().equals("<init>") || sig.getName().equals("<clinit>"))
+            return false;
+
+        int subSig = typeHierarchy.getSubSignatureId(sig);
+        for(ClassType c : matched) {
+            if(typeHierarchy.getDeclaredSubSignatureIds(c).contains(subSig))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Boolean matchesClass(ClassType type, AuxViewTypeHierarchy typeHierarchy) {
+        if(getMatchedClasses(type, typeHierarchy).isEmpty())
+            return false;
+        return allSubClassMethods ? true : null;
+    }
+
+    private void resetCache(AuxViewTypeHierarchy typeHierarchy) {
         if(this.cachedTypeHierarchy == null || !this.cachedTypeHierarchy.equals(typeHierarchy)) {
-            Stream<ClassType> classes;
-            if(getPattern() == null) {
-                classes = Stream.of(typeHierarchy.getView().getIdentifierFactory().getClassType(getName()));
-            } else {
-                classes = typeHierarchy.getView().getClasses().stream()
-                    .filter(sc -> 
-                        !sc.isInterface() 
-                        && getPattern().matcher(sc.getType().getFullyQualifiedName()).matches())
-                    .map(sc -> sc.getType());
-            }
-            classes = classes.filter(c -> typeHierarchy.contains(c));
-
-            Stream<MethodSignature> possibleMethods;
-            if(!allSubClassMethods) {
-                possibleMethods = classes.flatMap(i -> typeHierarchy.getAllImplementingMethods(i));
-            } else {
-                possibleMethods = classes.flatMap(i -> typeHierarchy.getAllSubClassMethods(i));
-            }
-
-            this.cachedMethods = possibleMethods.collect(Collectors.toSet());
+            this.cachedMatches = new ConcurrentHashMap<>();
             this.cachedTypeHierarchy = typeHierarchy;
         }
+    }
 
-        return this.cachedMethods.contains(sig);
+    private List<ClassType> getMatchedClasses(ClassType type, AuxViewTypeHierarchy typeHierarchy) {
+        resetCache(typeHierarchy);
+        List<ClassType> ret = cachedMatches.get(type);
+        if(ret == null) {
+            ret = findMatchedClasses(type, typeHierarchy);
+            cachedMatches.putIfAbsent(type, ret);
+        }
+        return ret;
+    }
+
+    private List<ClassType> findMatchedClasses(ClassType type, AuxViewTypeHierarchy typeHierarchy) {
+        if(!typeHierarchy.contains(type) || !typeHierarchy.isClass(type))
+            return Collections.emptyList();
+        // The class itself and all of its super classes
+        return Stream.concat(Stream.of(type), typeHierarchy.superClassesOf(type))
+            .filter(c -> matchesAncestor(c, typeHierarchy))
+            .collect(Collectors.toList());
+    }
+
+    private boolean matchesAncestor(ClassType type, AuxViewTypeHierarchy typeHierarchy) {
+        if(!matchesClassName(type.getFullyQualifiedName()))
+            return false;
+        // Patterns only ever matched classes present in the view
+        return getPattern() == null || typeHierarchy.getView().getClass(type).isPresent();
     }
 
-    
-    
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package sootup.core.inputlocation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
+
+import com.snc.secres.tool.passive.index.ClassPathSlice;
+
+import sootup.core.frontend.SootClassSource;
+import sootup.core.model.SourceType;
+import sootup.core.transform.BodyInterceptor;
+import sootup.core.types.ClassType;
+import sootup.core.views.View;
+
+/*
+ * Only exposes the classes of another input location that are in a class path slice. Classes outside
+ * the slice are not found and so become phantom classes in the view. The class sources are looked up 
+ * one class at a time so listing them costs the size of the slice rather than of the class path.
+ */
+public class SlicedAnalysisInputLocation implements AnalysisInputLocation {
+
+    @Nonnull private final AnalysisInputLocation inputLocation;
+    @Nonnull private final ClassPathSlice slice;
+
+    public SlicedAnalysisInputLocation(@Nonnull AnalysisInputLocation inputLocation, @Nonnull ClassPathSlice slice) {
+        this.inputLocation = inputLocation;
+        this.slice = slice;
+    }
+
+    @Nonnull
+    @Override
+    public Optional<? extends SootClassSource> getClassSource(@Nonnull ClassType type, @Nonnull View view) {
+        if(!slice.contains(type.getFullyQualifiedName()))
+            return Optional.empty();
+        return inputLocation.getClassSource(type, view);
+    }
+
+    @Nonnull
+    @Override
+    public Collection<? extends SootClassSource> getClassSources(@Nonnull View view) {
+        return slice.getClasses().stream()
+            .map(name -> inputLocation.getClassSource(view.getIdentifierFactory().getClassType(name), view))
+            .filter(Optional::isPresent)
+            .map(Optional::get)
+            .collect(Collectors.toList());
+    }
+
+    @Nonnull
+    @Override
+    public SourceType getSourceType() {
+        return inputLocation.getSourceType();
+    }
+
+    @Nonnull
+    @Override
+    public List<BodyInterceptor> getBodyInterceptors() {
+        return inputLocation.getBodyInterceptors();
+    }
+
+    @Nonnull
+    public AnalysisInputLocation getInputLocation() {
+        return inputLocation;
+    }
+
+    @Nonnull
+    public ClassPathSlice getSlice() {
+        return slice;
+    }
+
+}
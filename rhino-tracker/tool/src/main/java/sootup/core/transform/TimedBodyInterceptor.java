@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package sootup.core.transform;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+
+import sootup.core.model.Body;
+import sootup.core.views.View;
+
+/*
+ * Wraps a BodyInterceptor to record the number of bodies it processed and the cumulative time it
+ * spent doing so. Bodies may be resolved from multiple threads so the counters are LongAdders.
+ */
+public class TimedBodyInterceptor implements BodyInterceptor {
+
+    private final BodyInterceptor interceptor;
+    private final LongAdder nanos;
+    private final LongAdder invocations;
+
+    public TimedBodyInterceptor(BodyInterceptor interceptor) {
+        this.interceptor = interceptor;
+        this.nanos = new LongAdder();
+        this.invocations = new LongAdder();
+    }
+
+    @Override
+    public void interceptBody(@Nonnull Body.BodyBuilder builder, @Nonnull View view) {
+        long start = System.nanoTime();
+        try {
+            interceptor.interceptBody(builder, view);
+        } finally {
+            nanos.add(System.nanoTime() - start);
+            invocations.increment();
+        }
+    }
+
+    public BodyInterceptor getInterceptor() {
+        return interceptor;
+    }
+
+    public long getTotalNanos() {
+        return nanos.sum();
+    }
+
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    @Override
+    public String toString() {
+        return interceptor.getClass().getSimpleName() + ": " + getInvocations() + " bodies in " 
+                + TimeUnit.NANOSECONDS.toMillis(getTotalNanos()) + " ms";
+    }
+    
+}
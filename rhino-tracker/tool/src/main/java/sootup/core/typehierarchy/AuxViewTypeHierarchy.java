@@ -22,29 +22,74 @@
 
 package sootup.core.typehierarchy;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.annotation.Nonnull;
 
+import com.snc.secres.tool.passive.index.ClassPathIndex;
+import com.snc.secres.tool.passive.index.IndexedClass;
+
 import sootup.core.model.SootClass;
-import sootup.core.model.SootMethod;
 import sootup.core.signatures.MethodSignature;
 import sootup.core.signatures.MethodSubSignature;
 import sootup.core.typehierarchy.ViewTypeHierarchy.ScanResult.Vertex;
 import sootup.core.types.ClassType;
 import sootup.core.types.Type;
 import sootup.core.views.View;
+import sootup.java.bytecode.frontend.AsmUtil;
 
 public class AuxViewTypeHierarchy extends ViewTypeHierarchy {
 
     private final View view;
+    private final ClassType objectType;
+    private final Map<ClassType,IndexedType> indexedTypes;
+    private final AtomicInteger nextSubSignatureId;
+    private final Map<SubSignatureKey,Integer> subSignatureIds;
+    private final Map<ClassType,Set<Integer>> declaredSubSignatureIds;
+    private final Map<ClassType,List<ClassType>> subClassClosure;
+    private final Map<ClassType,List<MethodSignature>> implementingMethodsByType;
+    private final Map<ClassType,Map<MethodSubSignature,List<MethodSignature>>> implementingMethodsBySubSig;
 
     public AuxViewTypeHierarchy(View view) {
+        this(view, null);
+    }
+
+    /*
+     * When given a class path index, the hierarchy is built from the index instead of resolving every
+     * class in the view. The index must cover the same class path as the view for the results to match.
+     */
+    public AuxViewTypeHierarchy(View view, ClassPathIndex index) {
         super(view);
         this.view = view;
+        this.objectType = view.getIdentifierFactory().getClassType("java.lang.Object");
+        if(index == null) {
+            this.indexedTypes = null;
+        } else {
+            this.indexedTypes = new HashMap<>();
+            for(IndexedClass c : index.getClasses()) {
+                addIndexedType(AsmUtil.toJimpleClassType(c.getName()), c.isInterface(), 
+                    c.getInterfaces().stream().map(AsmUtil::toJimpleClassType).collect(Collectors.toList()),
+                    c.getSuperName() == null ? null : AsmUtil.toJimpleClassType(c.getSuperName()), c);
+            }
+        }
+        this.nextSubSignatureId = new AtomicInteger();
+        this.subSignatureIds = new ConcurrentHashMap<>();
+        this.declaredSubSignatureIds = new ConcurrentHashMap<>();
+        this.subClassClosure = new ConcurrentHashMap<>();
+        this.implementingMethodsByType = new ConcurrentHashMap<>();
+        this.implementingMethodsBySubSig = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -76,6 +121,10 @@ public class AuxViewTypeHierarchy extends ViewTypeHierarchy {
         return view;
     }
 
+    public boolean isIndexed() {
+        return indexedTypes != null;
+    }
+
     /** TODO
 	 * Returns all the sub-classes of a given class including the given class. These sub-classes are
 	 * directly and indirectly related to the given class. An Interface will return an empty set.
@@ -83,7 +132,7 @@ public class AuxViewTypeHierarchy extends ViewTypeHierarchy {
 	public Stream<ClassType> getAllSubClasses(ClassType type) {
         if(isInterface(type))
             return Stream.empty();
-        return Stream.concat(subtypesOf(type), Stream.of(type));
+        return getSubClassClosure(type).stream();
 	}
 
     /** TODO
@@ -99,8 +148,7 @@ public class AuxViewTypeHierarchy extends ViewTypeHierarchy {
 	public Stream<ClassType> getAllSubClassesOfInterface(ClassType parent) {
 		if (isClass(parent))
 			return Stream.empty();
-
-        return implementersOf(parent).filter(e -> isClass(e));
+        return getSubClassClosure(parent).stream();
 	}
 
     /*
@@ -111,31 +159,21 @@ public class AuxViewTypeHierarchy extends ViewTypeHierarchy {
 	 * in the class including the implemented methods of the given class.
 	 */
 	public Stream<MethodSignature> getAllImplementingMethods(ClassType org) {
-		Set<String> subSigs = view.getClass(org).get().getMethods().stream().map(m -> getSubSignatureWOReturn(m)).collect(Collectors.toSet());
-
-        Stream<SootClass> classes;
-		if (isInterface(org)) {
-            classes = getAllSubClassesOfInterface(org).map(e -> view.getClass(e).get());
-		} else {
-            classes = getAllSubClasses(org).map(e -> view.getClass(e).get());
-		}
-
-        return classes.flatMap(e -> e.getMethods().stream())
-            .filter(m -> 
-                !m.isAbstract() && !m.getName().equals("<init>") 
-                    && !m.getName().equals("<clinit>") 
-                    && subSigs.contains(getSubSignatureWOReturn(m)))
-            .map(m -> m.getSignature());
+        return memoize(implementingMethodsByType, org, t -> {
+            Set<Integer> subSigs = getDeclaredSubSignatureIds(t);
+            return getSubClassClosure(t).stream()
+                .map(e -> view.getClass(e))
+                .filter(Optional::isPresent)
+                .flatMap(e -> e.get().getMethods().stream())
+                .filter(m -> 
+                    !m.isAbstract() && !m.getName().equals("<init>") 
+                        && !m.getName().equals("<clinit>") 
+                        && subSigs.contains(getSubSignatureId(m.getSignature())))
+                .map(m -> m.getSignature())
+                .collect(Collectors.toUnmodifiableList());
+        }).stream();
 	}
 
-    private String getSubSignatureWOReturn(SootMethod sm) {
-        return sm.getName() + "("
-            + sm.getParameterTypes().stream()
-                .map(Object::toString)
-                .collect(Collectors.joining(","))
-            + ")";
-    }
-
     public Stream<MethodSignature> getAllImplementingMethods(MethodSignature orgSM) {
 		if(orgSM.getName().equals("<init>") || orgSM.getName().equals("<clinit>")) {
             return Stream.of(orgSM);
@@ -143,38 +181,145 @@ public class AuxViewTypeHierarchy extends ViewTypeHierarchy {
 
 		ClassType org = orgSM.getDeclClassType();
 		MethodSubSignature subSig = orgSM.getSubSignature();
-
-        Stream<SootClass> classes;
-		if (isInterface(org)) {
-            classes = getAllSubClassesOfInterface(org).map(e -> view.getClass(e).get());
-		} else {
-            classes = getAllSubClasses(org).map(e -> view.getClass(e).get());
-		}
-
-        return classes.flatMap(e -> e.getMethods().stream())
-            .filter(m -> !m.isAbstract() && subSig.equals(m.getSignature().getSubSignature()))
-            .map(m -> m.getSignature());
+        Map<MethodSubSignature,List<MethodSignature>> bySubSig = memoize(implementingMethodsBySubSig, org, t -> new ConcurrentHashMap<>());
+        return memoize(bySubSig, subSig, ss -> 
+            getSubClassClosure(org).stream()
+                .map(e -> view.getClass(e))
+                .filter(Optional::isPresent)
+                .map(e -> e.get().getMethod(ss))
+                .filter(m -> m.isPresent() && !m.get().isAbstract())
+                .map(m -> m.get().getSignature())
+                .collect(Collectors.toUnmodifiableList())
+        ).stream();
 	}
 
     public Stream<MethodSignature> getAllSubClassMethods(ClassType org) {
-        Stream<SootClass> classes;
-		if (isInterface(org)) {
-            classes = getAllSubClassesOfInterface(org).map(e -> view.getClass(e).get());
-		} else {
-            classes = getAllSubClasses(org).map(e -> view.getClass(e).get());
-		}
+        return getSubClassClosure(org).stream()
+            .map(e -> view.getClass(e))
+            .filter(Optional::isPresent)
+            .flatMap(e -> e.get().getMethods().stream())
+            .map(m -> m.getSignature());
+    }
+
+    /*
+     * Returns a id for the name and parameter types of a method (i.e. its sub-signature without the
+     * return type). Two methods get the same id if and only if one can override the other.
+     */
+    public int getSubSignatureId(MethodSignature sig) {
+        return getSubSignatureId(sig.getName(), sig.getParameterTypes());
+    }
+
+    private int getSubSignatureId(String name, List<Type> parameterTypes) {
+        return memoize(subSignatureIds, new SubSignatureKey(name, parameterTypes), k -> nextSubSignatureId.getAndIncrement());
+    }
+
+    /*
+     * Returns the ids of the sub-signatures of all methods declared in the given class or an empty
+     * set if the class is not part of the view.
+     */
+    public Set<Integer> getDeclaredSubSignatureIds(ClassType type) {
+        return memoize(declaredSubSignatureIds, type, t -> {
+            IndexedType indexedType = indexedTypes == null ? null : indexedTypes.get(t);
+            if(indexedType != null && indexedType.source != null) {
+                return indexedType.source.getMethods().stream().map(m -> {
+                    List<Type> sigTypes = AsmUtil.toJimpleSignatureDesc(m.getDescriptor());
+                    return getSubSignatureId(m.getName(), sigTypes.subList(0, sigTypes.size() - 1));
+                }).collect(Collectors.toUnmodifiableSet());
+            }
+            return view.getClass(t)
+                .map(sc -> sc.getMethods().stream().map(m -> getSubSignatureId(m.getSignature())).collect(Collectors.toUnmodifiableSet()))
+                .orElse(Collections.emptySet());
+        });
+    }
+
+    /*
+     * The transitive closure of sub classes for a type. For a class this includes the class itself,
+     * for an interface this only includes the classes implementing it directly or indirectly.
+     */
+    private List<ClassType> getSubClassClosure(ClassType type) {
+        return memoize(subClassClosure, type, t -> {
+            if(isInterface(t))
+                return implementersOf(t).filter(e -> isClass(e)).distinct().collect(Collectors.toUnmodifiableList());
+            return Stream.concat(subtypesOf(t), Stream.of(t)).distinct().collect(Collectors.toUnmodifiableList());
+        });
+    }
+
+    // ConcurrentHashMap.computeIfAbsent does not allow the mapping function to modify the same map
+    private static <K,V> V memoize(Map<K,V> map, K key, Function<K,V> function) {
+        V ret = map.get(key);
+        if(ret == null) {
+            ret = function.apply(key);
+            V prev = map.putIfAbsent(key, ret);
+            if(prev != null)
+                ret = prev;
+        }
+        return ret;
+    }
+
+    private void clearTables() {
+        subSignatureIds.clear();
+        declaredSubSignatureIds.clear();
+        subClassClosure.clear();
+        implementingMethodsByType.clear();
+        implementingMethodsBySubSig.clear();
+    }
+
+    private void addIndexedType(ClassType type, boolean isInterface, List<ClassType> interfaces, ClassType superClass, IndexedClass source) {
+        // Mirrors ViewTypeHierarchy.addSootClassToGraph including the creation of types that are only referenced
+        IndexedType vertex = indexedTypes.computeIfAbsent(type, k -> new IndexedType(k, isInterface));
+        if(vertex.source == null)
+            vertex.source = source;
+        for(ClassType i : interfaces) {
+            IndexedType iVertex = indexedTypes.computeIfAbsent(i, k -> new IndexedType(k, true));
+            if(!vertex.interfaces.contains(i)) {
+                vertex.interfaces.add(i);
+                iVertex.directSubtypes.add(type);
+            }
+        }
+        if(!isInterface && superClass != null) {
+            IndexedType sVertex = indexedTypes.computeIfAbsent(superClass, k -> new IndexedType(k, false));
+            if(vertex.superClass == null) {
+                vertex.superClass = superClass;
+                sVertex.directSubtypes.add(type);
+            }
+        }
+    }
+
+    private IndexedType getIndexedType(ClassType type) {
+        IndexedType ret = indexedTypes.get(type);
+        if(ret == null)
+            throw new IllegalArgumentException("Could not find '" + type + "' in hierarchy.");
+        return ret;
+    }
 
-        return classes.flatMap(e -> e.getMethods().stream()).map(m -> m.getSignature());
+    private void collectSubtypes(IndexedType vertex, List<ClassType> out) {
+        for(ClassType sub : vertex.directSubtypes) {
+            out.add(sub);
+            collectSubtypes(indexedTypes.get(sub), out);
+        }
+    }
+
+    private void collectSelfAndExtendedInterfaces(ClassType type, Set<ClassType> out) {
+        out.add(type);
+        for(ClassType i : indexedTypes.get(type).interfaces)
+            collectSelfAndExtendedInterfaces(i, out);
     }
 
     @Override
     public void addType(@Nonnull SootClass sootClass) {
-        super.addType(sootClass);
+        if(indexedTypes == null)
+            super.addType(sootClass);
+        else
+            addIndexedType(sootClass.getType(), sootClass.isInterface(), new ArrayList<>(sootClass.getInterfaces()), 
+                sootClass.getSuperclass().orElse(null), null);
+        clearTables();
     }
 
     @Override
     public boolean contains(ClassType type) {
-        return super.contains(type);
+        if(indexedTypes == null)
+            return super.contains(type);
+        return indexedTypes.containsKey(type);
     }
 
     @Override
@@ -190,7 +335,9 @@ public class AuxViewTypeHierarchy extends ViewTypeHierarchy {
     @Override
     @Nonnull
     public Stream<ClassType> directSubtypesOf(@Nonnull ClassType type) {
-        return super.directSubtypesOf(type);
+        if(indexedTypes == null)
+            return super.directSubtypesOf(type);
+        return getIndexedType(type).directSubtypes.stream().distinct();
     }
 
     @Override
@@ -201,52 +348,102 @@ public class AuxViewTypeHierarchy extends ViewTypeHierarchy {
     @Override
     @Nonnull
     public Stream<ClassType> directlyExtendedInterfacesOf(@Nonnull ClassType interfaceType) {
-        return super.directlyExtendedInterfacesOf(interfaceType);
+        if(indexedTypes == null)
+            return super.directlyExtendedInterfacesOf(interfaceType);
+        IndexedType vertex = getIndexedType(interfaceType);
+        if(!vertex.isInterface)
+            throw new IllegalArgumentException(interfaceType + " is not a class.");
+        return vertex.interfaces.stream();
     }
 
     @Override
     public Stream<ClassType> directlyImplementedInterfacesOf(@Nonnull ClassType classType) {
-        return super.directlyImplementedInterfacesOf(classType);
+        if(indexedTypes == null)
+            return super.directlyImplementedInterfacesOf(classType);
+        IndexedType vertex = getIndexedType(classType);
+        if(vertex.isInterface)
+            throw new IllegalArgumentException(classType + " is not a class.");
+        return vertex.interfaces.stream();
     }
 
     @Override
     @Nonnull
     public Stream<ClassType> implementedInterfacesOf(@Nonnull ClassType type) {
-        return super.implementedInterfacesOf(type);
+        if(indexedTypes == null)
+            return super.implementedInterfacesOf(type);
+        IndexedType vertex = getIndexedType(type);
+        Set<ClassType> ret = new LinkedHashSet<>();
+        if(vertex.isInterface) {
+            for(ClassType i : vertex.interfaces)
+                collectSelfAndExtendedInterfaces(i, ret);
+        } else {
+            for(IndexedType cur = vertex; cur != null; cur = cur.superClass == null ? null : indexedTypes.get(cur.superClass)) {
+                for(ClassType i : cur.interfaces)
+                    collectSelfAndExtendedInterfaces(i, ret);
+            }
+        }
+        return ret.stream();
     }
 
     @Override
     @Nonnull
     public Stream<ClassType> implementersOf(@Nonnull ClassType interfaceType) {
-        return super.implementersOf(interfaceType);
+        if(indexedTypes == null)
+            return super.implementersOf(interfaceType);
+        if(!getIndexedType(interfaceType).isInterface)
+            throw new IllegalArgumentException("'" + interfaceType + "' is not an interface.");
+        return subtypesOf(interfaceType);
     }
 
     @Override
     public boolean isClass(@Nonnull ClassType type) {
-        return super.isClass(type);
+        if(indexedTypes == null)
+            return super.isClass(type);
+        return !getIndexedType(type).isInterface;
     }
 
     @Override
     public boolean isInterface(@Nonnull ClassType type) {
-        return super.isInterface(type);
+        if(indexedTypes == null)
+            return super.isInterface(type);
+        return getIndexedType(type).isInterface;
     }
 
     @Override
     @Nonnull
     public Stream<ClassType> subclassesOf(@Nonnull ClassType classType) {
-        return super.subclassesOf(classType);
+        if(indexedTypes == null)
+            return super.subclassesOf(classType);
+        if(getIndexedType(classType).isInterface)
+            throw new IllegalArgumentException("'" + classType + "' is not a class.");
+        return subtypesOf(classType);
     }
 
     @Override
     @Nonnull
     public Stream<ClassType> subtypesOf(@Nonnull ClassType type) {
-        return super.subtypesOf(type);
+        if(indexedTypes == null)
+            return super.subtypesOf(type);
+        List<ClassType> ret = new ArrayList<>();
+        collectSubtypes(getIndexedType(type), ret);
+        return ret.stream();
     }
 
     @Override
     @Nonnull
     public Optional<ClassType> superClassOf(@Nonnull ClassType classType) {
-        return super.superClassOf(classType);
+        if(indexedTypes == null)
+            return super.superClassOf(classType);
+        IndexedType vertex = indexedTypes.get(classType);
+        if(vertex == null)
+            throw new IllegalArgumentException("Could not find '" + classType + "' in the view.");
+        if(objectType.equals(classType))
+            return Optional.empty();
+        if(vertex.superClass != null)
+            return Optional.of(vertex.superClass);
+        if(vertex.isInterface)
+            return Optional.of(objectType);
+        return Optional.empty();
     }
 
     @Override
@@ -255,17 +452,102 @@ public class AuxViewTypeHierarchy extends ViewTypeHierarchy {
         return super.superClassesOf(classVertex, excludeSelf);
     }
 
+    /* Array, null, and primitive types are left to the default, which only asks the hierarchy about class types. */
     @Override
     public boolean isSubtype(@Nonnull Type supertype, @Nonnull Type potentialSubtype) {
-        return super.isSubtype(supertype, potentialSubtype);
+        if(indexedTypes == null || !(supertype instanceof ClassType) || !(potentialSubtype instanceof ClassType))
+            return super.isSubtype(supertype, potentialSubtype);
+        if(objectType.equals(supertype))
+            return !objectType.equals(potentialSubtype);
+        ClassType subtype = (ClassType)potentialSubtype;
+        if(!indexedTypes.containsKey(subtype))
+            return false;
+        return superClassesOf(subtype).anyMatch(supertype::equals) || implementedInterfacesOf(subtype).anyMatch(supertype::equals);
     }
 
+    /* Like the default the super classes end at the first one that is not in the hierarchy. */
     @Override
     @Nonnull
     public Stream<ClassType> superClassesOf(@Nonnull ClassType classType) {
-        return super.superClassesOf(classType);
+        if(indexedTypes == null)
+            return super.superClassesOf(classType);
+        List<ClassType> ret = new ArrayList<>();
+        IndexedType vertex = indexedTypes.get(classType);
+        while(vertex != null && !objectType.equals(vertex.type)) {
+            ClassType superClass = vertex.superClass != null ? vertex.superClass : (vertex.isInterface ? objectType : null);
+            if(superClass == null)
+                break;
+            ret.add(superClass);
+            vertex = indexedTypes.get(superClass);
+        }
+        return ret.stream();
     }
 
-    
+    /*
+     * A type in the index backed hierarchy. For classes interfaces holds the directly implemented 
+     * interfaces and for interfaces the directly extended interfaces. Types that are only referenced
+     * by other types have no source.
+     */
+    private static final class IndexedType {
+        private final ClassType type;
+        private final boolean isInterface;
+        private final List<ClassType> interfaces;
+        private final List<ClassType> directSubtypes;
+        private ClassType superClass;
+        private IndexedClass source;
+
+        private IndexedType(ClassType type, boolean isInterface) {
+            this.type = type;
+            this.isInterface = isInterface;
+            this.interfaces = new ArrayList<>(1);
+            this.directSubtypes = new ArrayList<>(1);
+        }
+
+        @Override
+        public String toString() {
+            return type.toString();
+        }
+    }
+
+    private static final class SubSignatureKey {
+        private final String name;
+        private final List<Type> parameterTypes;
+
+        private SubSignatureKey(String name, List<Type> parameterTypes) {
+            this.name = name;
+            this.parameterTypes = parameterTypes;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((name == null) ? 0 : name.hashCode());
+            result = prime * result + ((parameterTypes == null) ? 0 : parameterTypes.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            SubSignatureKey other = (SubSignatureKey) obj;
+            if (name == null) {
+                if (other.name != null)
+                    return false;
+            } else if (!name.equals(other.name))
+                return false;
+            if (parameterTypes == null) {
+                if (other.parameterTypes != null)
+                    return false;
+            } else if (!parameterTypes.equals(other.parameterTypes))
+                return false;
+            return true;
+        }
+    }
     
 }
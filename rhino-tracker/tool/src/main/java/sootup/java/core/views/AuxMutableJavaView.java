@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2024 ServiceNow, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice (including the next paragraph)
+ * shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package sootup.java.core.views;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
+
+import com.snc.secres.tool.passive.index.ClassPathIndex;
+
+import sootup.core.cache.FullCache;
+import sootup.core.cache.MutableClassCache;
+import sootup.core.inputlocation.AnalysisInputLocation;
+import sootup.core.typehierarchy.AuxViewTypeHierarchy;
+import sootup.core.typehierarchy.TypeHierarchy;
+import sootup.core.types.ClassType;
+import sootup.java.core.JavaSootClass;
+
+/*
+ * A MutableJavaView whose type hierarchy is an AuxViewTypeHierarchy. If a class path index is given
+ * the type hierarchy is built from the index instead of resolving every class in the view.
+ */
+public class AuxMutableJavaView extends MutableJavaView {
+
+    private final ClassPathIndex classPathIndex;
+    private final Set<ClassType> addedClasses;
+    private AuxViewTypeHierarchy typeHierarchy;
+
+    public AuxMutableJavaView(@Nonnull List<AnalysisInputLocation> inputLocations, ClassPathIndex classPathIndex) {
+        super(inputLocations);
+        this.classPathIndex = classPathIndex;
+        this.addedClasses = new LinkedHashSet<>();
+    }
+
+    public ClassPathIndex getClassPathIndex() {
+        return classPathIndex;
+    }
+
+    @Override
+    @Nonnull
+    public synchronized TypeHierarchy getTypeHierarchy() {
+        if(typeHierarchy == null)
+            typeHierarchy = new AuxViewTypeHierarchy(this, classPathIndex);
+        return typeHierarchy;
+    }
+
+    /*
+     * A JavaClassPathAnalysisInputLocation collects its class sources in a HashSet so for a class that is on the
+     * class path more than once the copy resolved here would be arbitrary while getClass always resolves the first
+     * copy on the class path. Which copy ended up in the view then depended on whether the class happened to be
+     * resolved before or after the first call to this method. Every class is resolved through getClass instead so
+     * the view is the same no matter the order its classes are resolved in. Classes added to the view
+     * directly are not in any input location and follow the classes of the input locations.
+     */
+    @Override
+    @Nonnull
+    public synchronized Collection<JavaSootClass> getClasses() {
+        if(isFullyResolved && cache instanceof FullCache)
+            return super.getClasses();
+        Set<ClassType> types = new LinkedHashSet<>();
+        for(AnalysisInputLocation location : inputLocations) {
+            location.getClassSources(this).forEach(s -> types.add(s.getClassType()));
+        }
+        types.addAll(addedClasses);
+        List<JavaSootClass> ret = new ArrayList<>(types.size());
+        for(ClassType type : types) {
+            getClass(type).ifPresent(ret::add);
+        }
+        isFullyResolved = true;
+        return ret;
+    }
+
+    @Override
+    public synchronized void addClass(JavaSootClass clazz) {
+        super.addClass(clazz);
+        addedClasses.add(clazz.getClassSource().getClassType());
+    }
+
+    @Override
+    public synchronized void removeClass(ClassType classType) {
+        super.removeClass(classType);
+        addedClasses.remove(classType);
+    }
+
+    /*
+     * Drops every class that was resolved from the input locations so the classes, their method bodies,
+     * and the ASM trees they were built from can be garbage collected. Classes added to the view 
+     * directly cannot be resolved again and are kept. The type hierarchy only holds types and is kept 
+     * as well. Any dropped class is resolved again if requested. Returns the number of classes dropped.
+     */
+    public synchronized int releaseBodies() {
+        List<ClassType> toRemove = cache.getClasses().stream()
+            .map(c -> c.getType())
+            .filter(t -> !addedClasses.contains(t))
+            .collect(Collectors.toList());
+        for(ClassType type : toRemove) {
+            ((MutableClassCache)cache).removeClass(type);
+        }
+        isFullyResolved = false;
+        return toRemove.size();
+    }
+    
+}